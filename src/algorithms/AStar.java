@@ -1,288 +1,137 @@
 package algorithms;
 
-import graph.Edge;
 import graph.Graph;
+import graph.IndexedGraph;
 import graph.Node;
 
 import java.awt.Color;
 import java.awt.Graphics;
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Map;
-import java.util.PriorityQueue;
-import java.util.Set;
 
-import algorithms.Algorithm.Iteration;
+public class AStar extends SearchView{
 
-public class AStar extends Algorithm{
+	private AStarSearch search;
+	private int start;
+	private int goal;
 
-	private List<State> states = new ArrayList<>();
-	private Set<StarEdge> edges; //contains edges converted to where weight = euclidean distance
-	private Set<StarNode> nodes;
-	private StarNode goal;
-	
-	private Color COLOR_PATH = new Color(152,251,152);
-	private Color COLOR_VISITED = new Color(46,139,87);
-	private Color COLOR_FRINGE = new Color(143,188,143);
-	private Color COLOR_GOAL = new Color(95,158,160);
-	private Color COLOR_UNVISITED = Color.white;
+	// where answers are looked up and kept, or null; known is the answer found there, if any
+	private PathCache cache;
+	private PathResult known;
 	
 	public AStar(Graph graph, Node start, Node goal){
+		this(graph.freeze(), start, goal, null);
+	}
 
-		// convert the graph into one appropriate for A* - this is necessary because edge weights
-		// are probably arbitrary and they must be consistent for this algorithm to work.
-		Map<Node,StarNode> mapping = new HashMap<>();
-		nodes = new HashSet<>();
-		for (Node node : graph.getNodes()){
-			StarNode starNode = new StarNode(node);
-			nodes.add(starNode);
-			mapping.put(node, starNode);
-			if (node == goal) this.goal = starNode;
-		}
-		edges = new HashSet<>();
-		for (Edge edge : graph.getEdges()){
-			StarNode node1 = mapping.get(edge.node1);
-			StarNode node2 = mapping.get(edge.node2);
-			StarEdge starEdge = new StarEdge(node1,node2,edge);
-			node1.addNeighbour(starEdge, node2);
-			node2.addNeighbour(starEdge, node1);
-			edges.add(starEdge);
-		}
-		
-		// solve algorithm
-		solve(mapping.get(start),mapping.get(goal));
-		
+	public AStar(IndexedGraph graph, Node start, Node goal){
+		this(graph, start, goal, null);
 	}
 
 	/**
-	 * Solve A*, recording each iteration.
-	 * @param graph
-	 * @param goal
+	 * Set up A*, checking a cache for the answer first. If the answer is there, the search
+	 * isn't run and the only iteration shows the path; otherwise the answer is added to the
+	 * cache once the search finishes.
+	 * @param graph: graph to search.
+	 * @param start: node to start from.
+	 * @param goal: node to search for.
+	 * @param cache: cache of answers, or null to always search.
 	 */
-	private void solve(final StarNode start, final StarNode goal){
-
-		// set up; push start node onto fringe; record initial state
-		Set<StarNode> visited = new HashSet<>();
-		PriorityQueue<FringeNode> fringe = new PriorityQueue<>();
-		fringe.offer(new FringeNode(start,null,0,distanceBetween(start,goal)));
-		
-		while (true){
-			
-			// get next thing off the fringe
-			FringeNode currentFringeNode = fringe.poll();
-			StarNode currentNode = currentFringeNode.node;
-			
-			// already visited the node
-			if (visited.contains(currentNode)){
-				states.add(new State(visited,fringe,currentFringeNode));
-				continue;
-			}
-			
-			// reached goal node
-			if (currentNode == goal){
-				visited.add(currentNode);
-				states.add(new State(visited,fringe,currentFringeNode));
-				states.add(new State(null,null,currentFringeNode));
-				return;
-			}
-			
-			// otherwise add neighbours onto fringe
-			visited.add(currentNode);
-			for (Map.Entry<StarEdge,StarNode> entry : currentNode.neighbours.entrySet()){
-				StarEdge edge = entry.getKey();
-				StarNode neighbour = entry.getValue();
-				if (visited.contains(neighbour)) continue;
-				int cost = currentFringeNode.costToHere + edge.weight;
-				int dist = distanceBetween(currentNode,goal);
-				FringeNode newFringeNode = new FringeNode(neighbour,currentFringeNode,cost,dist);
-				fringe.offer(newFringeNode);
-			}
-			
-			// record state, keep going
-			states.add(new State(visited,fringe,currentFringeNode));
-			
-		}
-		
+	public AStar(Graph graph, Node start, Node goal, PathCache cache){
+		this(graph.freeze(), start, goal, cache);
 	}
-	
-	private class StarNode{
-		private Map<StarEdge,StarNode> neighbours;
-		private Node node;
-		
-		private StarNode(Node n){
-			node = n;
-			neighbours = new HashMap<>();
-		}
-		
-		private void addNeighbour(StarEdge e, StarNode sn){
-			neighbours.put(e,sn);
-		}
-		
-		private void draw(Graphics g, Color col){
-			node.draw(g, col);
-		}
-		
+
+	public AStar(IndexedGraph graph, Node start, Node goal, PathCache cache){
+		super(graph, true);
+		this.start = graph.id(start);
+		this.goal = graph.id(goal);
+		this.cache = cache;
+		if (cache != null) known = cache.get(graph, this.start, this.goal);
+		if (known == null) search = new AStarSearch(graph, this.start, this.goal);
+		reach(this.start, true);
+		
+		// iterations are produced as the user steps through them
+		firstIteration();
 	}
-	
-	private class StarEdge{
-		private Edge edge;
-		private StarNode node1;
-		private StarNode node2;
-		private boolean directed;
-		private int weight;
+
+	/**
+	 * Run one iteration of A*, recording it.
+	 * @return: true if there are more iterations to come.
+	 */
+	@Override
+	protected boolean step(){
 		
-		private StarEdge(StarNode n1, StarNode n2, Edge e){
-			edge = e;
-			node1 = n1;
-			node2 = n2;
-			directed = e.directed;
-			weight = distanceBetween(n1,n2);
+		// answer was cached: just show the path
+		if (known != null){
+			finish(known.found() ? goal : -1);
+			return false;
 		}
 		
-		private void draw(Graphics g, Color col){
-			g.setColor(col);
-			g.drawLine(node1.node.XMID, node1.node.YMID, node2.node.XMID, node2.node.YMID);
-			g.drawString(""+weight, (node1.node.XMID + node2.node.XMID)/2, (node1.node.YMID + node2.node.YMID)/2);
-		}
+		Tracer tracer = new Tracer();
+		boolean more = search.step(tracer);
+		visit(search.lastPolled(), true, tracer);
 		
+		// reached goal node: finish by showing only the path
+		if (search.found()) finish(goal);
+		if (!more && cache != null) cache.put(graph, start, goal, search.result());
+		return more;
 	}
-	
+
 	/**
-	 * Helper method. Returns the straight-line distance between two nodes.
-	 * @param n1: first node.
-	 * @param n2: second node.
-	 * @return: distance between n1 and n2.
+	 * Find the shortest path between two nodes without recording any iterations.
+	 * @param graph: graph to search.
+	 * @param start: node to start from.
+	 * @param goal: node to search for.
+	 * @return: the path and its cost.
 	 */
-	private int distanceBetween(StarNode n1, StarNode n2){
-		int dx = Math.abs(n1.node.X - n2.node.X);
-		int dy = Math.abs(n1.node.Y - n2.node.Y);
-		return (int)(Math.sqrt(dx*dx + dy*dy));
+	public static PathResult solve(IndexedGraph graph, Node start, Node goal){
+		return new AStarSearch(graph, graph.id(start), graph.id(goal)).solve();
 	}
 
-	private class FringeNode implements Comparable<FringeNode>{
-		private StarNode node;
-		private FringeNode from;
-		private int costToHere;
-		private int estimate;
-		
-		private FringeNode(StarNode node, FringeNode from, int cost, int heuristic){
-			this.node = node;
-			this.from = from;
-			costToHere = cost;
-			estimate = heuristic;
-		}
-		
-		@Override
-		public int compareTo(FringeNode other) {
-			return (costToHere + estimate) - (other.costToHere + estimate);
-		}
-		
-		@Override
-		public int hashCode(){
-			return node.hashCode();
-		}
-		
-		
-	}
-	
 	/**
-	 * The state of A* is a set of visited nodes, a priorityQueue of nodes ready to be
-	 * visited, and the last visited node.
-	 * @author craigaaro
+	 * Find the shortest path between two nodes using the graph's contraction hierarchy, which
+	 * is built on the first call. Worth it when the same graph is queried many times.
+	 * @param graph: graph to search.
+	 * @param start: node to start from.
+	 * @param goal: node to search for.
+	 * @return: the path and its cost.
 	 */
-	private class State implements Iteration{
-		private Set<StarNode> visited;
-		private PriorityQueue<FringeNode> fringe;
-		private FringeNode lastVisited;
-		private State(Set<StarNode> _visited, PriorityQueue<FringeNode> _fringe, FringeNode _lastVisited){
-			
-			if (_visited != null){
-				this.visited = new HashSet<>();
-				for (StarNode sn : _visited){
-					this.visited.add(sn);
-				}
-			}
-			else this.visited = null;
-			
-			if (fringe != null){
-				this.fringe = _fringe;
-				for (FringeNode fn : fringe){	
-					this.fringe.add(fn);
-				}
-			}
-			else this.fringe = null;
-			
-			this.lastVisited = _lastVisited;
-		}
+	public static PathResult solveContracted(IndexedGraph graph, Node start, Node goal){
+		return ContractionHierarchy.of(graph).solve(graph.id(start), graph.id(goal));
 	}
 
 	@Override
 	public void draw(Graphics g) {
 		
-		State state = states.get(stateIndex);
-		
 		// draw all edges
-		for (StarEdge se : edges) se.draw(g, Color.DARK_GRAY);
+		for (int e = 0; e < graph.edgeCount(); e++) drawEdge(g, graph.edge(e), Color.DARK_GRAY);
 		
 		// draw all nodes
-		for (StarNode sn : nodes) sn.draw(g,COLOR_UNVISITED);
+		for (int u = 0; u < graph.nodeCount(); u++) graph.node(u).draw(g,COLOR_UNVISITED);
 		
 		// draw visited nodes
-		if (state.visited != null){
-			for (StarNode sn : state.visited) sn.draw(g,COLOR_VISITED);
+		if (!done){
+			for (int u = 0; u < graph.nodeCount(); u++){
+				if (visited(u, true)) graph.node(u).draw(g,COLOR_VISITED);
+			}
 		}
 		
 		// draw fringe nodes
-		if (state.fringe != null){
-			for (FringeNode fn : state.fringe){
-				StarNode sn = fn.node;
-				sn.draw(g, COLOR_FRINGE);
+		if (!done){
+			for (int u = 0; u < graph.nodeCount(); u++){
+				if (onFringe(u, true)) graph.node(u).draw(g, COLOR_FRINGE);
 			}
 		}
 		
 		// draw path from last processed to start
-		if (state.lastVisited != null){
+		if (lastVisited >= 0){
 			
-			FringeNode fn = state.lastVisited;
-			Color color = (fn.node == goal) ? COLOR_GOAL : COLOR_PATH;
-			
-			while (fn != null){
-				if (fn.from != null){
-					StarEdge edge = edgeBetween(fn.node,fn.from.node);
-					edge.draw(g, color);
-				}
-				fn.node.draw(g, color);
-				fn = fn.from;
-			}
+			Color color = (lastVisited == goal) ? COLOR_GOAL : COLOR_PATH;
+			drawPath(g, (known != null) ? known.path() : search.pathTo(lastVisited), color);
 			
 		}
 		
 		// draw goal node
-		goal.draw(g, COLOR_GOAL);
+		graph.node(goal).draw(g, COLOR_GOAL);
 		
 		
 	}
-	
-	/**
-	 * Get the edge between two nodes, or null if there isn't one.
-	 * @param node1: first node.
-	 * @param node2: second node.
-	 * @return: edge between node1 and node2.
-	 */
-	private StarEdge edgeBetween(StarNode node1, StarNode node2){
-		if (node1 == null || node2 == null) throw new NullPointerException();
-		for (Map.Entry<StarEdge,StarNode> entry : node1.neighbours.entrySet()){
-			if (entry.getValue() == node2) return entry.getKey();
-		}
-		return null;
-	}
-	
-	@Override
-	protected int numberOfStates() {
-		return states.size();
-	}
-	
-}
+
+}
\ No newline at end of file
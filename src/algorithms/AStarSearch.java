@@ -0,0 +1,285 @@
+package algorithms;
+
+import graph.IndexedGraph;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * The A* search itself, without anything to do with drawing. AStar drives it one iteration
+ * at a time and watches what it does through a Trace; solve() runs it straight through with
+ * no trace and no history, for answering queries. Both go through step(), so the two can't
+ * give different answers.
+ *
+ * Edge weights are replaced with the straight-line distance between the nodes an edge joins,
+ * because the user's weights are probably arbitrary and A* needs them to be consistent with
+ * its heuristic. Weights and costs are kept exact, as doubles, so the heuristic stays
+ * consistent and a node never needs visiting twice. Working out the weights is O(V+E), so
+ * it's done once per graph and shared by every search on it (see projection()).
+ *
+ * The fringe is an IndexedHeap holding each node at most once: finding a cheaper path to a
+ * node on the fringe lowers its priority in place rather than pushing another entry.
+ */
+public class AStarSearch {
+
+	// euclidean arc weights of graphs searched recently. Graphs handed to searches are
+	// immutable snapshots, and Graph.freeze() makes a new one whenever the graph changes,
+	// so a snapshot's identity says which version of the graph its weights belong to.
+	// Snapshots that are no longer used drop out of the map on their own.
+	private static final Map<IndexedGraph,double[]> projections = new WeakHashMap<>();
+
+	private final IndexedGraph graph;
+	private final double[] distances; // arc weights converted to euclidean distance
+	private final int start;
+	private final int goal;
+
+	// search state, one slot per node: nothing is allocated while searching
+	private final IndexedHeap fringe;
+	private final boolean[] closed;
+	private final int[] parentArc;  // arc a node was best reached by, or -1
+	private final double[] costs;   // cost of the best path found to a node so far
+	private int lastPolled = -1;
+	private int expanded = 0;
+	private boolean found = false;
+
+	/**
+	 * Watches a search as it runs.
+	 */
+	public interface Trace{
+
+		/**
+		 * A node was taken off the fringe and visited.
+		 * @param node: id of the node.
+		 */
+		void polled(int node);
+
+		/**
+		 * A node was put onto the fringe. This isn't called again when a cheaper path to a
+		 * node already on the fringe is found.
+		 * @param node: id of the node.
+		 */
+		void pushed(int node);
+
+	}
+
+	/**
+	 * @param graph: graph to search.
+	 * @param start: id of the node to start from.
+	 * @param goal: id of the node to search for.
+	 */
+	public AStarSearch(IndexedGraph graph, int start, int goal){
+		this(graph, projection(graph), start, goal);
+	}
+
+	/**
+	 * @param graph: graph to search.
+	 * @param distances: euclidean weight of every arc, as made by euclideanWeights().
+	 * @param start: id of the node to start from.
+	 * @param goal: id of the node to search for.
+	 */
+	public AStarSearch(IndexedGraph graph, double[] distances, int start, int goal){
+		if (start < 0 || goal < 0) throw new IllegalArgumentException("Start and goal must be nodes in the graph.");
+		this.graph = graph;
+		this.distances = distances;
+		this.start = start;
+		this.goal = goal;
+		int n = graph.nodeCount();
+		fringe = new IndexedHeap(n);
+		closed = new boolean[n];
+		parentArc = new int[n];
+		costs = new double[n];
+		Arrays.fill(parentArc, -1);
+		Arrays.fill(costs, Double.POSITIVE_INFINITY);
+		costs[start] = 0;
+		fringe.offer(start, estimate(start));
+	}
+
+	/**
+	 * Run one iteration: take the best node off the fringe, visit it, and put its neighbours
+	 * onto the fringe (or lower their priority, if this is a cheaper way to reach them).
+	 * @param trace: told what happens, or null.
+	 * @return: true if there are more iterations to come, false if the goal was reached or
+	 * can't be reached.
+	 */
+	public boolean step(Trace trace){
+
+		// ran out of nodes: the goal is unreachable
+		if (fringe.isEmpty()){
+			lastPolled = -1;
+			return false;
+		}
+
+		// visit the next thing off the fringe
+		int node = fringe.poll();
+		lastPolled = node;
+		closed[node] = true;
+		expanded++;
+		if (trace != null) trace.polled(node);
+
+		// reached goal node
+		if (node == goal){
+			found = true;
+			return false;
+		}
+
+		// otherwise relax the arcs to its neighbours
+		double here = costs[node];
+		for (int arc = graph.firstArc(node); arc < graph.endArc(node); arc++){
+			int neighbour = graph.target(arc);
+			if (closed[neighbour]) continue;
+			double cost = here + distances[arc];
+			if (cost >= costs[neighbour]) continue;
+			boolean fresh = !fringe.contains(neighbour);
+			costs[neighbour] = cost;
+			parentArc[neighbour] = arc;
+			fringe.offer(neighbour, cost + estimate(neighbour));
+			if (fresh && trace != null) trace.pushed(neighbour);
+		}
+		return true;
+
+	}
+
+	/**
+	 * Run the search to the end without tracing it.
+	 * @return: the shortest path from start to goal.
+	 */
+	public PathResult solve(){
+		while (step(null));
+		return result();
+	}
+
+	/**
+	 * @return: the path found so far; only complete once step() has returned false.
+	 */
+	public PathResult result(){
+		if (!found) return new PathResult(null, 0, expanded);
+		return new PathResult(pathTo(goal), costs[goal], expanded);
+	}
+
+	/**
+	 * Return the path from the start to a visited node. A node's path never changes once
+	 * it has been visited, because the heuristic is consistent.
+	 * @param node: id of a visited node.
+	 * @return: ids of the nodes on the path, starting with the start node.
+	 */
+	public int[] pathTo(int node){
+		int length = 1;
+		for (int u = node; parentArc[u] >= 0; u = otherEnd(parentArc[u], u)) length++;
+		int[] path = new int[length];
+		int u = node;
+		for (int i = length-1; i >= 0; i--){
+			path[i] = u;
+			if (i > 0) u = otherEnd(parentArc[u], u);
+		}
+		return path;
+	}
+
+	/**
+	 * @param arc: an arc.
+	 * @param node: id of the node the arc points to.
+	 * @return: id of the node the arc comes from.
+	 */
+	private int otherEnd(int arc, int node){
+		int e = graph.arcEdge(arc);
+		int source = graph.edgeSource(e);
+		return source == node ? graph.edgeTarget(e) : source;
+	}
+
+	/**
+	 * @param node: id of a visited node.
+	 * @return: the arc it was reached by, or -1 for the start node.
+	 */
+	public int parentArc(int node){
+		return parentArc[node];
+	}
+
+	/**
+	 * @return: id of the node taken off the fringe by the last step, or -1 if there wasn't one.
+	 */
+	public int lastPolled(){
+		return lastPolled;
+	}
+
+	/**
+	 * @return: true once the goal has been reached.
+	 */
+	public boolean found(){
+		return found;
+	}
+
+	/**
+	 * @return: id of the start node.
+	 */
+	public int start(){
+		return start;
+	}
+
+	/**
+	 * @return: id of the goal node.
+	 */
+	public int goal(){
+		return goal;
+	}
+
+	/**
+	 * Return the euclidean weight of every arc in a graph, working them out only if they
+	 * haven't been already for this graph. The graph must not change afterwards; snapshots
+	 * from Graph.freeze() don't.
+	 * @param graph: the graph.
+	 * @return: array holding the straight-line length of each arc. Don't modify it.
+	 */
+	public static double[] projection(IndexedGraph graph){
+		synchronized (projections){
+			double[] distances = projections.get(graph);
+			if (distances == null){
+				distances = euclideanWeights(graph);
+				projections.put(graph, distances);
+			}
+			return distances;
+		}
+	}
+
+	/**
+	 * Work out the euclidean weight of every arc in a graph.
+	 * @param graph: the graph.
+	 * @return: array holding the straight-line length of each arc.
+	 */
+	public static double[] euclideanWeights(IndexedGraph graph){
+		double[] distances = new double[graph.arcCount()];
+		for (int u = 0; u < graph.nodeCount(); u++){
+			for (int arc = graph.firstArc(u); arc < graph.endArc(u); arc++){
+				int v = graph.target(arc);
+				double dx = graph.x(u) - graph.x(v);
+				double dy = graph.y(u) - graph.y(v);
+				distances[arc] = Math.sqrt(dx*dx + dy*dy);
+			}
+		}
+		return distances;
+	}
+
+	/**
+	 * The heuristic: the straight-line distance from a node to the goal. It never
+	 * overestimates, and it is consistent with the euclidean arc weights.
+	 * @param node: id of the node.
+	 * @return: estimated cost of getting from node to the goal.
+	 */
+	private double estimate(int node){
+		double dx = graph.x(node) - graph.x(goal);
+		double dy = graph.y(node) - graph.y(goal);
+		return Math.sqrt(dx*dx + dy*dy);
+	}
+
+	/**
+	 * Helper method. Returns the straight-line distance between two points.
+	 * @param (x1,y1): first point.
+	 * @param (x2,y2): second point.
+	 * @return: distance between the points.
+	 */
+	static int distanceBetween(int x1, int y1, int x2, int y2){
+		int dx = Math.abs(x1 - x2);
+		int dy = Math.abs(y1 - y2);
+		return (int)(Math.sqrt(dx*dx + dy*dy));
+	}
+
+}
@@ -1,15 +1,32 @@
 package algorithms;
 
 import java.awt.Graphics;
+import java.util.ArrayList;
+import java.util.List;
 
 public abstract class Algorithm {
 
+	private static final int CHECKPOINT_INTERVAL = 64;
+
 	protected int stateIndex = 0;  // index to the current state that this algorithm should display
 
+	// deltas.get(i) turns state i-1 into state i; checkpoints.get(j) is a full copy of state j*interval
+	private List<Iteration> deltas = new ArrayList<>();
+	private List<Iteration> checkpoints = new ArrayList<>();
+
+	// iterations are produced on demand; finished is set once the algorithm has no more to produce
+	private boolean finished = false;
+	private boolean recording = true;
+
 	/**
 	 * Each algorithm records all of its iterations, so that you can cycle back
 	 * and forward through them. The relation of algorithm to Iteration is one of
 	 * strong aggregation - that is, iterations do not exist without algorithms.
+	 *
+	 * An iteration is stored as a delta: what changed since the iteration before it.
+	 * Every so often a full checkpoint of the state is stored as well, so any iteration
+	 * can be rebuilt by restoring the checkpoint before it and replaying the deltas in
+	 * between. History therefore grows linearly in the number of iterations.
 	 * @author craigthelinguist
 	 */
 	protected interface Iteration{}
@@ -20,37 +37,168 @@ public abstract class Algorithm {
 	public abstract void draw(Graphics g);
 
 	/**
-	 * Returns the number of iterations in this algorithm.
+	 * Draws the current state of the algorithm onto a canvas of the given size. Algorithms
+	 * that place something against the edges of the canvas override this; the rest just draw.
+	 * @param g: object on which to draw.
+	 * @param width: width of the canvas.
+	 * @param height: height of the canvas.
+	 */
+	public void draw(Graphics g, int width, int height){
+		draw(g);
+	}
+
+	/**
+	 * Run the algorithm for one more iteration, calling record() for each iteration produced.
+	 * Algorithms don't solve themselves up front; this is called whenever the user steps past
+	 * the last iteration produced so far.
+	 * @return: true if there may be more iterations to come, false once the algorithm is done.
+	 */
+	protected abstract boolean step();
+
+	/**
+	 * Apply a delta to the state being displayed, moving it forward one iteration.
+	 * @param delta: a delta passed to record().
+	 */
+	protected abstract void apply(Iteration delta);
+
+	/**
+	 * Take a full copy of the state being displayed.
+	 * @return: a checkpoint that restore() can bring back.
+	 */
+	protected abstract Iteration checkpoint();
+
+	/**
+	 * Replace the state being displayed with a checkpoint.
+	 * @param checkpoint: a checkpoint made by checkpoint().
+	 */
+	protected abstract void restore(Iteration checkpoint);
+
+	/**
+	 * Called when the algorithm is thrown away, so that it can stop any work it has going on
+	 * in the background. Algorithms that have none needn't do anything.
+	 */
+	public void dispose(){}
+
+	/**
+	 * Returns how many iterations apart checkpoints are taken. Algorithms with large
+	 * checkpoints can space them further apart.
+	 * @return: number of iterations between checkpoints.
+	 */
+	protected int checkpointInterval(){
+		return CHECKPOINT_INTERVAL;
+	}
+
+	/**
+	 * Record the next iteration of this algorithm. The delta is applied to the displayed
+	 * state straight away, so the displayed state is always the last recorded iteration
+	 * while the algorithm is being solved.
+	 * @param delta: what changed since the last iteration.
+	 */
+	protected final void record(Iteration delta){
+		apply(delta);
+		if (recording) store(delta);
+	}
+
+	/**
+	 * Add an iteration to the history and make it the displayed one.
+	 */
+	private void store(Iteration delta){
+		deltas.add(delta);
+		stateIndex = deltas.size()-1;
+		if (stateIndex % checkpointInterval() == 0) checkpoints.add(checkpoint());
+	}
+
+	/**
+	 * Produce the next iteration of the algorithm, if there is one.
+	 */
+	private void produce(){
+		if (finished) return;
+		moveTo(numberOfStates()-1); // new iterations follow on from the last one produced
+		if (!step()) finished = true;
+	}
+
+	/**
+	 * Returns the number of iterations produced so far.
 	 * @return: number of iterations this algorithm has.
 	 */
-	protected abstract int numberOfStates();
+	protected int numberOfStates(){
+		return deltas.size();
+	}
+
+	/**
+	 * A full copy of the displayed state, stored in place of a delta where iterations were
+	 * skipped over.
+	 */
+	private static class Jump implements Iteration{
+		private final Iteration state;
+		private Jump(Iteration state){
+			this.state = state;
+		}
+	}
+
+	/**
+	 * Move the displayed state to the given iteration. Going forward a little replays the
+	 * deltas in between; anything else restores the nearest checkpoint and replays from there.
+	 * @param index: iteration to move to.
+	 */
+	private void moveTo(int index){
+		while (index >= numberOfStates() && !finished) produce();
+		index = Math.max(0, Math.min(numberOfStates()-1, index));
+		if (index < 0 || index == stateIndex) return;
+		int interval = checkpointInterval();
+		int from;
+		if (index > stateIndex && index - stateIndex <= interval) from = stateIndex;
+		else{
+			from = (index / interval) * interval;
+			restore(checkpoints.get(index / interval));
+		}
+		for (int i = from+1; i <= index; i++){
+			Iteration delta = deltas.get(i);
+			if (delta instanceof Jump) restore(((Jump)delta).state);
+			else apply(delta);
+		}
+		stateIndex = index;
+	}
 
 	/**
 	 * Moves the algorithm state to the first iteration.
 	 */
 	public final void firstIteration(){
-		stateIndex = 0;
+		moveTo(0);
 	}
 
 	/**
 	 * Moves the algorithm backward one iteration.
 	 */
 	public final void previousIteration(){
-		stateIndex = Math.max(0,stateIndex-1);
+		moveTo(stateIndex-1);
 	}
 
 	/**
 	 * Moves the algorithm forward one iteration.
 	 */
 	public final void nextIteration(){
-		stateIndex = Math.min(numberOfStates()-1,stateIndex+1);
+		moveTo(stateIndex+1);
 	}
 
 	/**
-	 * Moves the algorithm to the last iteration.
+	 * Moves the algorithm to the last iteration. If the algorithm hasn't finished yet it is
+	 * run to the end without recording the iterations in between.
 	 */
 	public final void lastIteration(){
-		stateIndex = numberOfStates()-1;
+		if (!finished){
+			moveTo(numberOfStates()-1);
+			recording = false;
+			try{
+				while (step());
+			}
+			finally{
+				recording = true;
+			}
+			finished = true;
+			store(new Jump(checkpoint()));
+		}
+		moveTo(numberOfStates()-1);
 	}
 
 }
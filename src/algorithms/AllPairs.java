@@ -0,0 +1,199 @@
+package algorithms;
+
+import graph.Graph;
+import graph.IndexedGraph;
+import graph.Node;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class AllPairs extends StagedAlgorithm{
+
+	// the heatmap is drawn this many pixels square in the top right of the canvas, or the top
+	// left if the canvas size isn't known
+	private static final int HEATMAP_SIDE = 200;
+	private static final int HEATMAP_MARGIN = 10;
+
+	private IndexedGraph graph;
+
+	// the distances, worked out in the background from when the mode is set up; matrix and
+	// diameter are filled in from it the first time a row is shown
+	private ForkJoinTask<DistanceMatrix> pending;
+	private final AtomicBoolean stop = new AtomicBoolean();
+	private DistanceMatrix matrix;
+	private long diameter;
+
+	// the rows to show, in order: every node's if the heatmap is on, else just the one selected.
+	// Each stage shows one more, so the last shown is sources[shown-1].
+	private int[] sources;
+	private boolean heatmap;
+
+	// the heatmap as it was last drawn, and how many rows it had
+	private BufferedImage image;
+	private int imageRows = -1;
+
+	private Color COLOR_NEAR = new Color(46,139,87);
+	private Color COLOR_FAR = new Color(255,250,205);
+	private Color COLOR_UNREACHABLE = Color.LIGHT_GRAY;
+	private Color COLOR_SOURCE = new Color(95,158,160);
+	private Color COLOR_UNVISITED = Color.white;
+
+	/**
+	 * Set up all-pairs shortest paths. The distances are found on the common ForkJoinPool,
+	 * so setting up doesn't wait for them; stepping to the first row does.
+	 * @param graph: graph to find distances on.
+	 * @param source: node whose distances to show, or null to go through every node's and
+	 * draw them all as a heatmap.
+	 */
+	public AllPairs(Graph graph, Node source){
+		this(graph.freeze(), source);
+	}
+
+	public AllPairs(final IndexedGraph graph, Node source){
+		this.graph = graph;
+		DistanceMatrix.checkWeights(graph);
+		this.pending = ForkJoinPool.commonPool().submit(new Callable<DistanceMatrix>(){
+			@Override
+			public DistanceMatrix call(){
+				return DistanceMatrix.of(graph, ForkJoinPool.commonPool(), stop);
+			}
+		});
+		this.heatmap = (source == null);
+		if (heatmap){
+			sources = new int[graph.nodeCount()];
+			for (int u = 0; u < sources.length; u++) sources[u] = u;
+		}
+		else sources = new int[]{ graph.id(source) };
+
+		/* Add the initial state: no rows shown. */
+		advance(false,sources.length == 0);
+	}
+
+	@Override
+	protected boolean step(){
+		if (done) return false;
+		if (matrix == null){
+			matrix = pending.join();
+			diameter = Math.max(1, matrix.diameter());
+			pending = null;
+		}
+
+		/* Show the next row; after the last, the search is over. */
+		boolean more = shown+1 < sources.length;
+		advance(true,!more);
+		return more;
+
+	}
+
+	/**
+	 * Stop working out the distances if they're still being worked out, so they don't hold
+	 * up the pool or stay in memory once nobody wants them. A task that hasn't started is
+	 * cancelled; one that has gives up at the next row or block of the matrix.
+	 */
+	@Override
+	public void dispose(){
+		if (pending != null){
+			stop.set(true);
+			pending.cancel(false);
+			pending = null;
+		}
+	}
+
+	/**
+	 * Find the distance between every pair of nodes without recording any iterations.
+	 * @param graph: the graph.
+	 * @param pool: threads to work on.
+	 * @return: the distances.
+	 */
+	public static DistanceMatrix solve(IndexedGraph graph, ForkJoinPool pool){
+		return DistanceMatrix.of(graph, pool);
+	}
+
+	@Override
+	public void draw(Graphics g) {
+		drawDistances(g);
+		if (heatmap) drawHeatmap(g, HEATMAP_MARGIN, HEATMAP_MARGIN);
+	}
+
+	@Override
+	public void draw(Graphics g, int width, int height) {
+		drawDistances(g);
+		if (heatmap) drawHeatmap(g, Math.max(HEATMAP_MARGIN, width - HEATMAP_SIDE - HEATMAP_MARGIN), HEATMAP_MARGIN);
+	}
+
+	/**
+	 * Draw the graph, with every node labelled with its distance from the last row's node.
+	 */
+	private void drawDistances(Graphics g){
+
+		// draw all edges
+		for (int e = 0; e < graph.edgeCount(); e++) graph.edge(e).draw(g, Color.DARK_GRAY);
+
+		// draw all nodes, coloured by their distance from the last row's node
+		int source = shown == 0 ? -1 : sources[shown-1];
+		for (int u = 0; u < graph.nodeCount(); u++){
+			Node node = graph.node(u);
+			long distance = source < 0 ? DistanceMatrix.UNREACHABLE : matrix.distance(source, u);
+			if (distance == DistanceMatrix.UNREACHABLE) node.draw(g, COLOR_UNVISITED);
+			else{
+				node.draw(g, shade(distance));
+				g.setColor(Color.BLACK);
+				g.drawString(""+distance, node.X, node.Y);
+			}
+		}
+		if (source >= 0) graph.node(source).draw(g, COLOR_SOURCE);
+	}
+
+	/**
+	 * Draw the rows shown so far as a square of coloured cells, a row and a column per node.
+	 * Graphs with more nodes than the heatmap has pixels are sampled.
+	 * @param left: x coordinate of the heatmap's left edge.
+	 * @param top: y coordinate of the heatmap's top edge.
+	 */
+	private void drawHeatmap(Graphics g, int left, int top){
+		int n = graph.nodeCount();
+		if (n == 0) return;
+		int side = Math.min(n, HEATMAP_SIDE);
+		if (image == null) image = new BufferedImage(side, side, BufferedImage.TYPE_INT_RGB);
+		if (imageRows != shown){
+			for (int y = 0; y < side; y++){
+				int row = (int)((long)y * n / side);
+				for (int x = 0; x < side; x++){
+					int column = (int)((long)x * n / side);
+					Color color;
+					if (row >= shown) color = COLOR_UNVISITED;
+					else if (matrix.distance(row, column) == DistanceMatrix.UNREACHABLE) color = COLOR_UNREACHABLE;
+					else color = shade(matrix.distance(row, column));
+					image.setRGB(x, y, color.getRGB());
+				}
+			}
+			imageRows = shown;
+		}
+
+		// outline it, and the last row shown
+		g.drawImage(image, left, top, HEATMAP_SIDE, HEATMAP_SIDE, null);
+		g.setColor(Color.BLACK);
+		g.drawRect(left-1, top-1, HEATMAP_SIDE+1, HEATMAP_SIDE+1);
+		if (shown > 0 && !done){
+			int y = top + (int)((long)(shown-1) * HEATMAP_SIDE / n);
+			g.drawRect(left-1, y-1, HEATMAP_SIDE+1, Math.max(1, HEATMAP_SIDE / n)+1);
+		}
+	}
+
+	/**
+	 * @return: a colour from COLOR_NEAR for no distance at all to COLOR_FAR for the diameter.
+	 */
+	private Color shade(long distance){
+		double t = Math.min(1.0, (double)distance / diameter);
+		int r = (int)(COLOR_NEAR.getRed() + t * (COLOR_FAR.getRed() - COLOR_NEAR.getRed()));
+		int gr = (int)(COLOR_NEAR.getGreen() + t * (COLOR_FAR.getGreen() - COLOR_NEAR.getGreen()));
+		int b = (int)(COLOR_NEAR.getBlue() + t * (COLOR_FAR.getBlue() - COLOR_NEAR.getBlue()));
+		return new Color(r, gr, b);
+	}
+
+}
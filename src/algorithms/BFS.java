@@ -0,0 +1,85 @@
+package algorithms;
+
+import graph.Graph;
+import graph.IndexedGraph;
+import graph.Node;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.util.concurrent.ForkJoinPool;
+
+public class BFS extends StagedAlgorithm{
+
+	private IndexedGraph graph;
+	// the search run, a level per stage: shown is the deepest level shown
+	private BFSSearch search;
+
+	private Color COLOR_TREE = new Color(152,251,152);
+	private Color COLOR_VISITED = new Color(46,139,87);
+	private Color COLOR_FRONTIER = new Color(143,188,143);
+	private Color COLOR_BOTTOM_UP = new Color(176,196,222);
+	private Color COLOR_SOURCE = new Color(95,158,160);
+	private Color COLOR_UNVISITED = Color.white;
+
+	public BFS(Graph graph, Node source){
+		this(graph.freeze(), source);
+	}
+
+	public BFS(IndexedGraph graph, Node source){
+		this.graph = graph;
+		this.search = new BFSSearch(graph, graph.id(source));
+
+		/* Add the initial state: just the source. */
+		advance(false,false);
+	}
+
+	@Override
+	protected boolean step(){
+
+		/* Find the next level; when there isn't one, add the final, 'complete' state. */
+		boolean more = search.step();
+		advance(more,!more);
+		return more;
+
+	}
+
+	/**
+	 * Find how many hops every node is from a source without recording any iterations.
+	 * @param graph: graph to search.
+	 * @param source: node to start from.
+	 * @param pool: threads to search on.
+	 * @return: the finished search, for its levels and how fast it ran.
+	 */
+	public static BFSSearch solve(IndexedGraph graph, Node source, ForkJoinPool pool){
+		BFSSearch search = new BFSSearch(graph, graph.id(source), pool);
+		search.solve();
+		return search;
+	}
+
+	@Override
+	public void draw(Graphics g) {
+
+		// draw edges, and the arcs each shown node was reached by
+		for (int e = 0; e < graph.edgeCount(); e++) graph.edge(e).draw(g, Color.DARK_GRAY);
+		for (int u = 0; u < graph.nodeCount(); u++){
+			int level = search.level(u);
+			if (level > 0 && level <= shown) graph.edge(graph.arcEdge(search.parentArc(u))).draw(g, COLOR_TREE);
+		}
+
+		// draw nodes: the frontier is coloured by which way it was found
+		Color frontier = (shown > 0 && search.wentBottomUp(shown)) ? COLOR_BOTTOM_UP : COLOR_FRONTIER;
+		for (int u = 0; u < graph.nodeCount(); u++){
+			Node node = graph.node(u);
+			int level = search.level(u);
+			if (level < 0 || level > shown) node.draw(g, COLOR_UNVISITED);
+			else{
+				node.draw(g, (level == shown && !done) ? frontier : COLOR_VISITED);
+				g.setColor(Color.BLACK);
+				g.drawString(""+level, node.X, node.Y);
+			}
+		}
+		graph.node(search.source()).draw(g, COLOR_SOURCE);
+
+	}
+
+}
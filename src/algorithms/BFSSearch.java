@@ -0,0 +1,366 @@
+package algorithms;
+
+import graph.IndexedGraph;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Breadth-first search, one level at a time, spread over the threads of a ForkJoinPool. Each
+ * level finds every node one hop further from the source than the last, so a node's level is
+ * the fewest edges on any path to it from the source.
+ *
+ * A level can be found two ways. Top-down, every node on the frontier (the last level found)
+ * looks at its neighbours and claims those nobody has reached yet. Bottom-up, every node nobody
+ * has reached yet looks at the nodes that lead to it, and joins the next level as soon as it
+ * finds one on the frontier. Top-down is cheaper while the frontier is small; bottom-up once
+ * the frontier is a big part of the graph, because most unreached nodes find a frontier node
+ * straight away and stop looking. The search switches between them level by level (this is
+ * direction-optimizing BFS, after Beamer, Asanovic and Patterson).
+ *
+ * Reached nodes are marked in a bitset of atomic longs, so two threads can never both claim a
+ * node going top-down.
+ */
+public class BFSSearch {
+
+	// go bottom-up once the frontier's edges are more than 1/ALPHA of those left unexplored,
+	// and back top-down once the frontier is less than 1/BETA of the nodes
+	private static final int ALPHA = 14;
+	private static final int BETA = 24;
+
+	// work is split into pieces of about this many nodes
+	private static final int CHUNK = 1024;
+
+	private static final int[] NONE = new int[0];
+
+	private final IndexedGraph graph;
+	private final ReverseArcs reverse;
+	private final ForkJoinPool pool;
+	private final int source;
+
+	// search state: one bit per node for whether it's been reached, plus each node's level
+	// and the arc it was reached by
+	private final AtomicLongArray reached;
+	private final int[] levels;
+	private final int[] parentArc;
+
+	// the frontier, and what's known about the levels found so far
+	private int[] frontier;
+	private int level = 0;
+	private boolean bottomUp = false;
+	private boolean[] wentBottomUp = new boolean[16];
+	private int[] levelSizes = new int[16];
+	private long unexplored;
+	private long edgesExamined = 0;
+	private int reachedCount = 1;
+	private long nanos = 0;
+
+	/**
+	 * @param graph: graph to search.
+	 * @param source: id of the node to start from.
+	 */
+	public BFSSearch(IndexedGraph graph, int source){
+		this(graph, source, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @param graph: graph to search.
+	 * @param source: id of the node to start from.
+	 * @param pool: threads to search on.
+	 */
+	public BFSSearch(IndexedGraph graph, int source, ForkJoinPool pool){
+		if (source < 0) throw new IllegalArgumentException("Source must be a node in the graph.");
+		this.graph = graph;
+		this.reverse = ReverseArcs.of(graph);
+		this.pool = pool;
+		this.source = source;
+		int n = graph.nodeCount();
+		reached = new AtomicLongArray((n + 63) >>> 6);
+		levels = new int[n];
+		parentArc = new int[n];
+		Arrays.fill(levels, -1);
+		Arrays.fill(parentArc, -1);
+		claim(source);
+		levels[source] = 0;
+		frontier = new int[]{ source };
+		levelSizes[0] = 1;
+		unexplored = graph.arcCount() - graph.degree(source);
+	}
+
+	/**
+	 * Find the next level.
+	 * @return: true if it had any nodes in it, false once every reachable node has been found.
+	 */
+	public boolean step(){
+		if (frontier.length == 0) return false;
+		long started = System.nanoTime();
+
+		// decide which way to go
+		long frontierArcs = 0;
+		for (int u : frontier) frontierArcs += graph.degree(u);
+		if (!bottomUp && frontierArcs > unexplored / ALPHA) bottomUp = true;
+		else if (bottomUp && frontier.length < graph.nodeCount() / BETA) bottomUp = false;
+
+		int[] next;
+		if (bottomUp){
+			edgesExamined += pool.invoke(new BottomUp(0, graph.nodeCount())).examined;
+			next = pool.invoke(new Collect(0, graph.nodeCount(), level+1)).nodes;
+		}
+		else{
+			Found found = pool.invoke(new TopDown(0, frontier.length));
+			edgesExamined += found.examined;
+			next = found.nodes;
+		}
+		for (int v : next) unexplored -= graph.degree(v);
+
+		// remember how this level went
+		if (level+1 == levelSizes.length){
+			levelSizes = Arrays.copyOf(levelSizes, levelSizes.length*2);
+			wentBottomUp = Arrays.copyOf(wentBottomUp, wentBottomUp.length*2);
+		}
+		wentBottomUp[level+1] = bottomUp;
+		levelSizes[level+1] = next.length;
+		reachedCount += next.length;
+		frontier = next;
+		nanos += System.nanoTime() - started;
+		if (next.length == 0) return false;
+		level++;
+		return true;
+	}
+
+	/**
+	 * Run the search to the end.
+	 * @return: level of every node, or -1 for nodes that can't be reached.
+	 */
+	public int[] solve(){
+		while (step());
+		return levels.clone();
+	}
+
+	/**
+	 * @param node: id of a node.
+	 * @return: its level, or -1 if it hasn't been reached.
+	 */
+	public int level(int node){
+		return levels[node];
+	}
+
+	/**
+	 * @param node: id of a reached node.
+	 * @return: the arc it was reached by, or -1 for the source.
+	 */
+	public int parentArc(int node){
+		return parentArc[node];
+	}
+
+	/**
+	 * @return: the deepest level found so far.
+	 */
+	public int depth(){
+		return level;
+	}
+
+	/**
+	 * @param l: a level found so far.
+	 * @return: number of nodes on that level.
+	 */
+	public int levelSize(int l){
+		return levelSizes[l];
+	}
+
+	/**
+	 * @param l: a level found so far, other than 0.
+	 * @return: true if it was found bottom-up.
+	 */
+	public boolean wentBottomUp(int l){
+		return wentBottomUp[l];
+	}
+
+	/**
+	 * @return: number of nodes reached so far.
+	 */
+	public int reachedCount(){
+		return reachedCount;
+	}
+
+	/**
+	 * @return: number of arcs looked at so far.
+	 */
+	public long edgesExamined(){
+		return edgesExamined;
+	}
+
+	/**
+	 * @return: time spent finding levels so far, in nanoseconds.
+	 */
+	public long nanos(){
+		return nanos;
+	}
+
+	/**
+	 * The usual measure of how fast a breadth-first search is: the number of arcs leaving the
+	 * nodes it has reached, divided by the time it took to reach them.
+	 * @return: arcs traversed per second so far.
+	 */
+	public double edgesPerSecond(){
+		long traversed = graph.arcCount() - unexplored;
+		return nanos == 0 ? 0 : traversed * 1e9 / nanos;
+	}
+
+	/**
+	 * @return: id of the source node.
+	 */
+	public int source(){
+		return source;
+	}
+
+	/**
+	 * Mark a node as reached.
+	 * @return: true if this call reached it, false if it had been already.
+	 */
+	private boolean claim(int node){
+		int word = node >>> 6;
+		long bit = 1L << node;
+		long current;
+		do{
+			current = reached.get(word);
+			if ((current & bit) != 0) return false;
+		} while (!reached.compareAndSet(word, current, current | bit));
+		return true;
+	}
+
+	private boolean isReached(int node){
+		return (reached.get(node >>> 6) & (1L << node)) != 0;
+	}
+
+	/**
+	 * Nodes found by part of a level, and how many arcs were looked at to find them.
+	 */
+	private static class Found{
+		private final int[] nodes;
+		private final long examined;
+		private Found(int[] nodes, long examined){
+			this.nodes = nodes;
+			this.examined = examined;
+		}
+		private static Found join(Found a, Found b){
+			if (a.nodes.length == 0) return new Found(b.nodes, a.examined + b.examined);
+			if (b.nodes.length == 0) return new Found(a.nodes, a.examined + b.examined);
+			int[] nodes = Arrays.copyOf(a.nodes, a.nodes.length + b.nodes.length);
+			System.arraycopy(b.nodes, 0, nodes, a.nodes.length, b.nodes.length);
+			return new Found(nodes, a.examined + b.examined);
+		}
+	}
+
+	/**
+	 * Top-down: a range of the frontier claims the unreached neighbours of its nodes.
+	 */
+	@SuppressWarnings("serial")
+	private class TopDown extends RecursiveTask<Found>{
+		private final int from;
+		private final int to;
+		private TopDown(int from, int to){
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected Found compute(){
+			if (to - from > CHUNK){
+				int mid = (from + to) >>> 1;
+				TopDown right = new TopDown(mid, to);
+				right.fork();
+				Found left = new TopDown(from, mid).compute();
+				return Found.join(left, right.join());
+			}
+			int[] found = NONE;
+			int count = 0;
+			long examined = 0;
+			for (int i = from; i < to; i++){
+				int u = frontier[i];
+				for (int arc = graph.firstArc(u); arc < graph.endArc(u); arc++){
+					examined++;
+					int v = graph.target(arc);
+					if (isReached(v) || !claim(v)) continue;
+					levels[v] = level+1;
+					parentArc[v] = arc;
+					if (count == found.length) found = Arrays.copyOf(found, Math.max(16, count*2));
+					found[count++] = v;
+				}
+			}
+			return new Found(Arrays.copyOf(found, count), examined);
+		}
+	}
+
+	/**
+	 * Bottom-up: each unreached node in a range of ids looks for an arc from the frontier.
+	 */
+	@SuppressWarnings("serial")
+	private class BottomUp extends RecursiveTask<Found>{
+		private final int from;
+		private final int to;
+		private BottomUp(int from, int to){
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected Found compute(){
+			if (to - from > CHUNK*4){
+				int mid = ((from + to) >>> 1) & ~63; // split on whole words of the bitset
+				BottomUp right = new BottomUp(mid, to);
+				right.fork();
+				Found left = new BottomUp(from, mid).compute();
+				return Found.join(left, right.join());
+			}
+			long examined = 0;
+			for (int v = from; v < to; v++){
+				if (isReached(v)) continue;
+				for (int i = reverse.first(v); i < reverse.end(v); i++){
+					examined++;
+					if (levels[reverse.source(i)] != level) continue;
+					claim(v);
+					levels[v] = level+1;
+					parentArc[v] = reverse.arc(i);
+					break;
+				}
+			}
+			return new Found(NONE, examined);
+		}
+	}
+
+	/**
+	 * Gathers the nodes on a level, in order of id.
+	 */
+	@SuppressWarnings("serial")
+	private class Collect extends RecursiveTask<Found>{
+		private final int from;
+		private final int to;
+		private final int on;
+		private Collect(int from, int to, int on){
+			this.from = from;
+			this.to = to;
+			this.on = on;
+		}
+
+		@Override
+		protected Found compute(){
+			if (to - from > CHUNK*16){
+				int mid = (from + to) >>> 1;
+				Collect right = new Collect(mid, to, on);
+				right.fork();
+				Found left = new Collect(from, mid, on).compute();
+				return Found.join(left, right.join());
+			}
+			int count = 0;
+			for (int v = from; v < to; v++) if (levels[v] == on) count++;
+			int[] nodes = new int[count];
+			count = 0;
+			for (int v = from; v < to; v++) if (levels[v] == on) nodes[count++] = v;
+			return new Found(nodes, 0);
+		}
+	}
+
+}
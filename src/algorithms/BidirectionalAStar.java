@@ -0,0 +1,104 @@
+package algorithms;
+
+import graph.Graph;
+import graph.IndexedGraph;
+import graph.Node;
+
+import java.awt.Color;
+import java.awt.Graphics;
+
+public class BidirectionalAStar extends SearchView{
+
+	private BidirectionalAStarSearch search;
+	private int start;
+	private int goal;
+	private int[] path = null; // the shortest path, once the search has finished
+
+	private Color COLOR_VISITED_BACKWARD = new Color(70,130,180);
+	private Color COLOR_FRINGE_BACKWARD = new Color(176,196,222);
+
+	public BidirectionalAStar(Graph graph, Node start, Node goal){
+		this(graph.freeze(), start, goal);
+	}
+
+	public BidirectionalAStar(IndexedGraph graph, Node start, Node goal){
+		super(graph, true);
+		this.start = graph.id(start);
+		this.goal = graph.id(goal);
+		this.search = new BidirectionalAStarSearch(graph, this.start, this.goal);
+		reach(this.start, true);
+		reach(this.goal, false);
+
+		// iterations are produced as the user steps through them
+		firstIteration();
+	}
+
+	/**
+	 * Run one iteration of the search, recording it.
+	 * @return: true if there are more iterations to come.
+	 */
+	@Override
+	protected boolean step(){
+		Tracer tracer = new Tracer();
+		boolean more = search.step(tracer);
+		if (more){
+			visit(search.lastPolled(), search.lastForward(), tracer);
+			return true;
+		}
+
+		// searches have met: finish by showing only the path. If they never do, leave what
+		// they visited on show.
+		if (search.found()){
+			path = search.result().path();
+			finish(-1);
+		}
+		else visit(-1, true, new Tracer());
+		return false;
+	}
+
+	/**
+	 * Find the shortest path between two nodes without recording any iterations.
+	 * @param graph: graph to search.
+	 * @param start: node to start from.
+	 * @param goal: node to search for.
+	 * @return: the path and its cost.
+	 */
+	public static PathResult solve(IndexedGraph graph, Node start, Node goal){
+		return new BidirectionalAStarSearch(graph, graph.id(start), graph.id(goal)).solve();
+	}
+
+	@Override
+	public void draw(Graphics g) {
+
+		// draw all edges
+		for (int e = 0; e < graph.edgeCount(); e++) drawEdge(g, graph.edge(e), Color.DARK_GRAY);
+
+		// draw nodes, coloured by what each search has done with them
+		for (int u = 0; u < graph.nodeCount(); u++){
+			Color color = COLOR_UNVISITED;
+			if (!done){
+				if (onFringe(u, false)) color = COLOR_FRINGE_BACKWARD;
+				if (onFringe(u, true)) color = COLOR_FRINGE;
+				if (visited(u, false)) color = COLOR_VISITED_BACKWARD;
+				if (visited(u, true)) color = COLOR_VISITED;
+			}
+			graph.node(u).draw(g, color);
+		}
+
+		// draw the path found, or the path from the last visited node to its search's end
+		int[] nodes = null;
+		Color color = COLOR_PATH;
+		if (done){
+			nodes = path;
+			color = COLOR_GOAL;
+		}
+		else if (lastVisited >= 0) nodes = search.pathTo(lastVisited, lastForward);
+		if (nodes != null) drawPath(g, nodes, color);
+
+		// draw start and goal nodes
+		graph.node(start).draw(g, COLOR_GOAL);
+		graph.node(goal).draw(g, COLOR_GOAL);
+
+	}
+
+}
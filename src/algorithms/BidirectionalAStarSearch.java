@@ -0,0 +1,256 @@
+package algorithms;
+
+import graph.IndexedGraph;
+
+import java.util.Arrays;
+
+/**
+ * A* run from both ends at once: a forward search from the start and a backward search from
+ * the goal, each taking a step in turn, until together they have found the shortest path.
+ * On long paths each search only has to cover about half the distance, so far fewer nodes
+ * are visited than by AStarSearch alone.
+ *
+ * Both searches use the same euclidean arc weights as AStarSearch. They can't each use their
+ * own straight-line heuristic, because then they'd disagree about which paths are short and
+ * there'd be no telling when to stop. Instead they share an averaged one: the forward search
+ * estimates (distance to goal - distance to start)/2, and the backward search the negative of
+ * that. The two are consistent with each other, so the search can stop as soon as the best
+ * priorities on the two fringes add up to no less than the shortest path found so far.
+ *
+ * BidirectionalAStar drives this one step at a time and watches it through a Trace; solve()
+ * runs it straight through.
+ */
+public class BidirectionalAStarSearch {
+
+	private final IndexedGraph graph;
+	private final ReverseArcs reverse;
+	private final double[] distances;
+	private final int start;
+	private final int goal;
+
+	// state of each search: index 0 is forward from the start, 1 is backward from the goal.
+	// A forward parent arc leads into a node; a backward one leads out of it towards the goal.
+	private final IndexedHeap[] fringe = new IndexedHeap[2];
+	private final boolean[][] closed = new boolean[2][];
+	private final int[][] parentArc = new int[2][];
+	private final double[][] costs = new double[2][];
+
+	// shortest path found so far: its cost, and the node where the two searches meet on it
+	private double best = Double.POSITIVE_INFINITY;
+	private int meeting = -1;
+
+	private int lastPolled = -1;
+	private boolean lastForward = true;
+	private int expanded = 0;
+	private boolean finished = false;
+
+	/**
+	 * Watches a search as it runs.
+	 */
+	public interface Trace{
+
+		/**
+		 * A node was taken off a fringe and visited.
+		 * @param node: id of the node.
+		 * @param forward: true if by the forward search, false if by the backward one.
+		 */
+		void polled(int node, boolean forward);
+
+		/**
+		 * A node was put onto a fringe.
+		 * @param node: id of the node.
+		 * @param forward: true if onto the forward fringe, false if the backward one.
+		 */
+		void pushed(int node, boolean forward);
+
+	}
+
+	/**
+	 * @param graph: graph to search.
+	 * @param start: id of the node to start from.
+	 * @param goal: id of the node to search for.
+	 */
+	public BidirectionalAStarSearch(IndexedGraph graph, int start, int goal){
+		if (start < 0 || goal < 0) throw new IllegalArgumentException("Start and goal must be nodes in the graph.");
+		this.graph = graph;
+		this.reverse = ReverseArcs.of(graph);
+		this.distances = AStarSearch.projection(graph);
+		this.start = start;
+		this.goal = goal;
+		int n = graph.nodeCount();
+		for (int side = 0; side < 2; side++){
+			fringe[side] = new IndexedHeap(n);
+			closed[side] = new boolean[n];
+			parentArc[side] = new int[n];
+			costs[side] = new double[n];
+			Arrays.fill(parentArc[side], -1);
+			Arrays.fill(costs[side], Double.POSITIVE_INFINITY);
+		}
+		costs[0][start] = 0;
+		costs[1][goal] = 0;
+		fringe[0].offer(start, estimate(start, true));
+		fringe[1].offer(goal, estimate(goal, false));
+		if (start == goal){
+			best = 0;
+			meeting = start;
+		}
+	}
+
+	/**
+	 * Run one iteration: take the best node off one of the fringes, visit it, and relax the
+	 * arcs leading away from it (for the forward search) or into it (for the backward one).
+	 * The searches take turns, favouring whichever has the smaller fringe.
+	 * @param trace: told what happens, or null.
+	 * @return: true if there are more iterations to come, false once the shortest path has
+	 * been found or there isn't one.
+	 */
+	public boolean step(Trace trace){
+
+		// stop when neither fringe can lead to anything shorter than the best path so far
+		if (finished || fringe[0].isEmpty() || fringe[1].isEmpty()
+				|| fringe[0].key(fringe[0].peek()) + fringe[1].key(fringe[1].peek()) >= best){
+			finished = true;
+			lastPolled = -1;
+			return false;
+		}
+
+		// visit the next node on the smaller fringe
+		boolean forward = fringe[0].size() <= fringe[1].size();
+		int side = forward ? 0 : 1;
+		int node = fringe[side].poll();
+		closed[side][node] = true;
+		lastPolled = node;
+		lastForward = forward;
+		expanded++;
+		if (trace != null) trace.polled(node, forward);
+
+		// relax arcs out of the node going forward, into it going backward
+		double here = costs[side][node];
+		int first = forward ? graph.firstArc(node) : reverse.first(node);
+		int end = forward ? graph.endArc(node) : reverse.end(node);
+		for (int i = first; i < end; i++){
+			int arc = forward ? i : reverse.arc(i);
+			int neighbour = forward ? graph.target(arc) : reverse.source(i);
+			if (closed[side][neighbour]) continue;
+			double cost = here + distances[arc];
+			if (cost >= costs[side][neighbour]) continue;
+			boolean fresh = !fringe[side].contains(neighbour);
+			costs[side][neighbour] = cost;
+			parentArc[side][neighbour] = arc;
+			fringe[side].offer(neighbour, cost + estimate(neighbour, forward));
+			if (fresh && trace != null) trace.pushed(neighbour, forward);
+
+			// the other search has reached this neighbour too: that's a path from start to goal
+			double through = cost + costs[1-side][neighbour];
+			if (through < best){
+				best = through;
+				meeting = neighbour;
+			}
+		}
+		return true;
+
+	}
+
+	/**
+	 * Run the search to the end without tracing it.
+	 * @return: the shortest path from start to goal.
+	 */
+	public PathResult solve(){
+		while (step(null));
+		return result();
+	}
+
+	/**
+	 * @return: the shortest path found so far; only the shortest once step() has returned false.
+	 */
+	public PathResult result(){
+		if (meeting < 0) return new PathResult(null, 0, expanded);
+		int[] toMeeting = pathTo(meeting, true);
+		int[] fromMeeting = pathTo(meeting, false);
+		int[] path = Arrays.copyOf(toMeeting, toMeeting.length + fromMeeting.length - 1);
+		System.arraycopy(fromMeeting, 1, path, toMeeting.length, fromMeeting.length - 1);
+		return new PathResult(path, best, expanded);
+	}
+
+	/**
+	 * Return the path one of the searches has found between its end and a node. A node's
+	 * path never changes once that search has visited it.
+	 * @param node: id of a node reached by the search.
+	 * @param forward: true for the path from the start to node, false for the path from node
+	 * to the goal.
+	 * @return: ids of the nodes on the path, in order from start or from node.
+	 */
+	public int[] pathTo(int node, boolean forward){
+		int side = forward ? 0 : 1;
+		int length = 1;
+		for (int u = node; parentArc[side][u] >= 0; u = otherEnd(parentArc[side][u], forward)) length++;
+		int[] path = new int[length];
+		int u = node;
+		for (int i = 0; i < length; i++){
+			path[forward ? length-1-i : i] = u;
+			if (i < length-1) u = otherEnd(parentArc[side][u], forward);
+		}
+		return path;
+	}
+
+	/**
+	 * @param arc: a parent arc.
+	 * @param forward: true if it's a forward search's parent arc.
+	 * @return: id of the node it leads back to, towards the start or goal.
+	 */
+	private int otherEnd(int arc, boolean forward){
+		int e = graph.arcEdge(arc);
+		int target = graph.target(arc);
+		if (!forward) return target;
+		int source = graph.edgeSource(e);
+		return source == target ? graph.edgeTarget(e) : source;
+	}
+
+	/**
+	 * @param node: id of a node.
+	 * @param forward: which search is asking.
+	 * @return: the averaged heuristic for that search at the node.
+	 */
+	private double estimate(int node, boolean forward){
+		double toGoal = distanceBetween(node, goal);
+		double toStart = distanceBetween(node, start);
+		double estimate = (toGoal - toStart) / 2;
+		return forward ? estimate : -estimate;
+	}
+
+	private double distanceBetween(int n1, int n2){
+		double dx = graph.x(n1) - graph.x(n2);
+		double dy = graph.y(n1) - graph.y(n2);
+		return Math.sqrt(dx*dx + dy*dy);
+	}
+
+	/**
+	 * @return: id of the node visited by the last step, or -1 if there wasn't one.
+	 */
+	public int lastPolled(){
+		return lastPolled;
+	}
+
+	/**
+	 * @return: true if the last step was taken by the forward search.
+	 */
+	public boolean lastForward(){
+		return lastForward;
+	}
+
+	/**
+	 * @return: true if a path from start to goal has been found (it's only known to be the
+	 * shortest once step() has returned false).
+	 */
+	public boolean found(){
+		return meeting >= 0;
+	}
+
+	/**
+	 * @return: the node where the two halves of the best path found so far meet, or -1.
+	 */
+	public int meeting(){
+		return meeting;
+	}
+
+}
@@ -0,0 +1,124 @@
+package algorithms;
+
+import graph.Edge;
+import graph.Graph;
+import graph.IndexedGraph;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.util.concurrent.ForkJoinPool;
+
+public class Boruvka extends Algorithm{
+
+	private IndexedGraph graph;
+	private BoruvkaSearch search;
+
+	// displayed state: the first 'treeSize' edges added by the search are in the spanning
+	// tree, the last 'lastAdded' of them by the last round shown.
+	private int treeSize = 0;
+	private int lastAdded = 0;
+
+	public Boruvka(Graph g){
+		this(g.freeze());
+	}
+
+	public Boruvka(IndexedGraph g){
+		graph = g;
+		search = new BoruvkaSearch(g);
+
+		/* Add the initial, 'empty' state. */
+		record(new Step(0));
+	}
+
+	@Override
+	protected boolean step(){
+
+		/* Run a round; the round that adds nothing is the final, 'complete' state. */
+		int added = search.step();
+		record(new Step(added));
+		return added > 0;
+
+	}
+
+	@Override
+	public void draw(Graphics g) {
+
+		// draw edges
+		for (int e = 0; e < graph.edgeCount(); e++) graph.edge(e).draw(g, Color.BLACK);
+		for (int i = 0; i < treeSize; i++){
+			Color color = (i >= treeSize - lastAdded) ? Color.CYAN : Color.GREEN;
+			graph.edge(search.tree(i)).draw(g, color);
+		}
+
+		// draw nodes
+		for (int u = 0; u < graph.nodeCount(); u++) graph.node(u).draw(g,Color.WHITE);
+		for (int i = 0; i < treeSize; i++){
+			Edge e = graph.edge(search.tree(i));
+			e.node1.draw(g, Color.GREEN);
+			e.node2.draw(g, Color.GREEN);
+		}
+
+	}
+
+	/**
+	 * What changed in one iteration: a round of Boruvka's added some edges to the tree.
+	 */
+	private class Step implements Iteration{
+		private final int added;
+		private Step(int added){
+			this.added = added;
+		}
+	}
+
+	/**
+	 * A full copy of the displayed state. The tree only grows, so the state is just how big
+	 * it is and how much the last round added.
+	 */
+	private class Checkpoint implements Iteration{
+		private final int treeSize;
+		private final int lastAdded;
+		private Checkpoint(int treeSize, int lastAdded){
+			this.treeSize = treeSize;
+			this.lastAdded = lastAdded;
+		}
+	}
+
+	@Override
+	protected void apply(Iteration delta) {
+		Step step = (Step)delta;
+		treeSize += step.added;
+		lastAdded = step.added;
+	}
+
+	@Override
+	protected Iteration checkpoint() {
+		return new Checkpoint(treeSize, lastAdded);
+	}
+
+	@Override
+	protected void restore(Iteration iteration) {
+		Checkpoint checkpoint = (Checkpoint)iteration;
+		treeSize = checkpoint.treeSize;
+		lastAdded = checkpoint.lastAdded;
+	}
+
+	/**
+	 * Find a minimum spanning tree without recording any iterations, on the common pool.
+	 * @param graph: graph to span.
+	 * @return: the edges of the tree and their total weight.
+	 */
+	public static TreeResult solve(IndexedGraph graph){
+		return new BoruvkaSearch(graph).solve();
+	}
+
+	/**
+	 * Find a minimum spanning tree without recording any iterations.
+	 * @param graph: graph to span.
+	 * @param pool: threads to run on.
+	 * @return: the edges of the tree and their total weight.
+	 */
+	public static TreeResult solve(IndexedGraph graph, ForkJoinPool pool){
+		return new BoruvkaSearch(graph, pool).solve();
+	}
+
+}
@@ -0,0 +1,208 @@
+package algorithms;
+
+import graph.IndexedGraph;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Boruvka's minimum spanning tree algorithm, spread over the threads of a ForkJoinPool. It
+ * works in rounds: every component of the tree so far picks the cheapest edge leaving it, and
+ * all of those edges are added at once. Each round at least halves the number of components,
+ * so there are at most log(n) of them.
+ *
+ * Picking the cheapest edges is the expensive part, and it's done in parallel: the edges still
+ * in play are split into chunks, and each thread offers its chunk's edges to the components at
+ * either end, keeping the cheaper with an atomic compare-and-set. Edges are compared by
+ * (weight, id) just as KruskalsSearch sorts them, so no two compare equal, the tree is unique,
+ * and both algorithms find exactly the same one. Joining the chosen edges is done on one thread.
+ */
+public class BoruvkaSearch {
+
+	// edges are split into chunks of at least this many when picking the cheapest in parallel
+	private static final int CHUNK = 4096;
+
+	private static final long NONE = Long.MAX_VALUE;
+
+	private final IndexedGraph graph;
+	private final ForkJoinPool pool;
+	private final DisjointSets sets;
+
+	// edges that still join different components: the first live of them
+	private int[] edges;
+	private int live;
+
+	// component each node was in at the start of the round, and the cheapest edge (as a
+	// (weight << 32 | id) key) leaving each component
+	private final int[] component;
+	private final AtomicLongArray cheapest;
+
+	// edges of the tree in the order they were added, and the number added by each round
+	private final int[] tree;
+	private int treeSize = 0;
+	private long weight = 0;
+	private int[] rounds = new int[8];
+	private int round = 0;
+	private boolean finished = false;
+
+	/**
+	 * @param graph: graph to span.
+	 */
+	public BoruvkaSearch(IndexedGraph graph){
+		this(graph, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @param graph: graph to span.
+	 * @param pool: threads to pick edges on.
+	 */
+	public BoruvkaSearch(IndexedGraph graph, ForkJoinPool pool){
+		this.graph = graph;
+		this.pool = pool;
+		int n = graph.nodeCount();
+		sets = new DisjointSets(n);
+		component = new int[n];
+		cheapest = new AtomicLongArray(n);
+		tree = new int[Math.max(0, n-1)];
+		edges = new int[graph.edgeCount()];
+		for (int e = 0; e < edges.length; e++) edges[e] = e;
+		live = edges.length;
+	}
+
+	/**
+	 * @return: true if there may be edges left to add.
+	 */
+	public boolean hasNext(){
+		return !finished;
+	}
+
+	/**
+	 * Run one round: find the cheapest edge leaving every component and add them all.
+	 * @return: number of edges added; 0 once the tree is complete.
+	 */
+	public int step(){
+		if (finished) return 0;
+		int n = graph.nodeCount();
+		for (int u = 0; u < n; u++){
+			component[u] = sets.find(u);
+			cheapest.set(u, NONE);
+		}
+
+		// each component picks its cheapest edge, in parallel
+		pool.invoke(new Pick(0, live));
+
+		// join them all up, dropping edges that no longer join different components
+		int before = treeSize;
+		for (int u = 0; u < n; u++){
+			long key = cheapest.get(u);
+			if (key == NONE) continue;
+			int e = (int)key;
+			if (sets.union(graph.edgeSource(e), graph.edgeTarget(e))){
+				tree[treeSize++] = e;
+				weight += graph.edgeWeight(e);
+			}
+		}
+		int kept = 0;
+		for (int i = 0; i < live; i++){
+			int e = edges[i];
+			if (!sets.connected(graph.edgeSource(e), graph.edgeTarget(e))) edges[kept++] = e;
+		}
+		live = kept;
+
+		int added = treeSize - before;
+		if (added == 0) finished = true;
+		else{
+			if (round == rounds.length) rounds = Arrays.copyOf(rounds, round*2);
+			rounds[round++] = added;
+		}
+		return added;
+	}
+
+	/**
+	 * Run the algorithm to the end.
+	 * @return: the minimum spanning tree (or forest) of the graph.
+	 */
+	public TreeResult solve(){
+		while (step() > 0);
+		return result();
+	}
+
+	/**
+	 * @return: the tree built so far; only complete once hasNext() is false.
+	 */
+	public TreeResult result(){
+		return new TreeResult(Arrays.copyOf(tree, treeSize), weight);
+	}
+
+	/**
+	 * @param i: position in the tree.
+	 * @return: id of the i-th edge added to the tree.
+	 */
+	public int tree(int i){
+		return tree[i];
+	}
+
+	/**
+	 * @return: number of edges added to the tree so far.
+	 */
+	public int treeSize(){
+		return treeSize;
+	}
+
+	/**
+	 * @return: number of rounds run that added edges.
+	 */
+	public int rounds(){
+		return round;
+	}
+
+	/**
+	 * @param r: a round.
+	 * @return: number of edges that round added.
+	 */
+	public int addedIn(int r){
+		return rounds[r];
+	}
+
+	/**
+	 * Offers a range of the live edges to the components at their ends, splitting the range
+	 * in two until it's small enough to do in one go.
+	 */
+	@SuppressWarnings("serial")
+	private class Pick extends RecursiveAction{
+		private final int from;
+		private final int to;
+		private Pick(int from, int to){
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute(){
+			if (to - from > CHUNK){
+				int mid = (from + to) >>> 1;
+				invokeAll(new Pick(from, mid), new Pick(mid, to));
+				return;
+			}
+			for (int i = from; i < to; i++){
+				int e = edges[i];
+				int a = component[graph.edgeSource(e)];
+				int b = component[graph.edgeTarget(e)];
+				if (a == b) continue;
+				long key = ((long)graph.edgeWeight(e) << 32) | e;
+				offer(a, key);
+				offer(b, key);
+			}
+		}
+
+		private void offer(int c, long key){
+			long current;
+			while (key < (current = cheapest.get(c))){
+				if (cheapest.compareAndSet(c, current, key)) return;
+			}
+		}
+	}
+
+}
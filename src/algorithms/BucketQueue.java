@@ -0,0 +1,108 @@
+package algorithms;
+
+import java.util.Arrays;
+
+/**
+ * A priority queue of node ids with whole-number keys, for Dijkstra's algorithm when edge
+ * weights are small whole numbers (Dial's algorithm). There is a bucket for every key from the
+ * smallest key in the queue up to that plus the largest edge weight. Dijkstra never offers a
+ * key outside that window, so the buckets can be reused in a circle. Offering and lowering a
+ * key take constant time; polling walks forward to the next bucket with something in it.
+ *
+ * Each bucket is a doubly linked list threaded through arrays indexed by node id, so nothing
+ * is allocated once the queue has been made.
+ */
+class BucketQueue {
+
+	private final int[] heads;   // first node in each bucket, or -1
+	private final int[] next;    // next node in the same bucket, or -1
+	private final int[] prev;    // previous node in the same bucket, or -1 at the head
+	private final long[] keys;   // key of each node in the queue
+	private final boolean[] queued;
+	private long current = 0;    // no key in the queue is smaller than this
+	private int size = 0;
+
+	/**
+	 * @param capacity: number of nodes; ids must be less than this.
+	 * @param maxWeight: largest edge weight, so the largest gap between keys in the queue.
+	 */
+	BucketQueue(int capacity, int maxWeight){
+		heads = new int[maxWeight+1];
+		next = new int[capacity];
+		prev = new int[capacity];
+		keys = new long[capacity];
+		queued = new boolean[capacity];
+		Arrays.fill(heads, -1);
+	}
+
+	/**
+	 * @return: true if there are no nodes in the queue.
+	 */
+	boolean isEmpty(){
+		return size == 0;
+	}
+
+	/**
+	 * @param node: id of a node.
+	 * @return: true if the node is in the queue.
+	 */
+	boolean contains(int node){
+		return queued[node];
+	}
+
+	/**
+	 * Put a node into the queue, or lower its key if it's there already with a higher one.
+	 * The key must be no less than the last key polled, and no more than that plus maxWeight.
+	 * @param node: id of the node.
+	 * @param key: its key.
+	 * @return: true if the queue changed.
+	 */
+	boolean offer(int node, long key){
+		if (queued[node]){
+			if (key >= keys[node]) return false;
+			unlink(node);
+		}
+		else{
+			queued[node] = true;
+			size++;
+		}
+		keys[node] = key;
+		int bucket = bucket(key);
+		int head = heads[bucket];
+		next[node] = head;
+		prev[node] = -1;
+		if (head >= 0) prev[head] = node;
+		heads[bucket] = node;
+		return true;
+	}
+
+	/**
+	 * Remove a node with the smallest key.
+	 * @return: its id.
+	 */
+	int poll(){
+		int bucket = bucket(current);
+		while (heads[bucket] < 0){
+			current++;
+			if (++bucket == heads.length) bucket = 0;
+		}
+		int node = heads[bucket];
+		unlink(node);
+		queued[node] = false;
+		size--;
+		return node;
+	}
+
+	private void unlink(int node){
+		int before = prev[node];
+		int after = next[node];
+		if (before >= 0) next[before] = after;
+		else heads[bucket(keys[node])] = after;
+		if (after >= 0) prev[after] = before;
+	}
+
+	private int bucket(long key){
+		return (int)(key % heads.length);
+	}
+
+}
@@ -0,0 +1,118 @@
+package algorithms;
+
+import graph.Graph;
+import graph.IndexedGraph;
+import graph.Node;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * The same question as A*, answered with the graph's contraction hierarchy instead of a search
+ * over the whole graph. The query itself is over in one step, so the only iteration shows the
+ * path, along with what the hierarchy cost to build and how fast it has answered so far.
+ */
+public class ContractedAStar extends SearchView{
+
+	private int start;
+	private int goal;
+
+	// the hierarchy, built in the background from when the mode is set up (or taken from the
+	// cache if the graph hasn't changed since it was last built); result is filled in from it
+	// the first time the algorithm is stepped
+	private ForkJoinTask<ContractionHierarchy> pending;
+	private ContractionHierarchy hierarchy;
+	private PathResult result;
+
+	/**
+	 * Set up a query on the contraction hierarchy. The hierarchy is built on the common
+	 * ForkJoinPool, so setting up doesn't wait for it; stepping to the path does.
+	 * @param graph: graph to search.
+	 * @param start: node to start from.
+	 * @param goal: node to search for.
+	 */
+	public ContractedAStar(Graph graph, Node start, Node goal){
+		this(graph.freeze(), start, goal);
+	}
+
+	public ContractedAStar(final IndexedGraph graph, Node start, Node goal){
+		super(graph, true);
+		this.start = graph.id(start);
+		this.goal = graph.id(goal);
+		this.pending = ForkJoinPool.commonPool().submit(new Callable<ContractionHierarchy>(){
+			@Override
+			public ContractionHierarchy call(){
+				return ContractionHierarchy.of(graph);
+			}
+		});
+
+		// the initial state shows only the query, so setting up doesn't wait for the hierarchy
+		visit(-1, true, new Tracer());
+	}
+
+	/**
+	 * Answer the query, recording it as the iteration after the initial one.
+	 * @return: false, as there's nothing more to show.
+	 */
+	@Override
+	protected boolean step(){
+		if (result == null){
+			hierarchy = pending.join();
+			pending = null;
+			result = AStar.solveContracted(graph, graph.node(start), graph.node(goal));
+		}
+		finish(result.found() ? goal : -1);
+		return false;
+	}
+
+	/**
+	 * Stop building the hierarchy if it hasn't been started on yet. One that has is left to
+	 * finish, as it goes in the cache for the next query on the same graph.
+	 */
+	@Override
+	public void dispose(){
+		if (pending != null){
+			pending.cancel(false);
+			pending = null;
+		}
+	}
+
+	@Override
+	public void draw(Graphics g) {
+
+		// draw all edges
+		for (int e = 0; e < graph.edgeCount(); e++) drawEdge(g, graph.edge(e), Color.DARK_GRAY);
+
+		// draw all nodes
+		for (int u = 0; u < graph.nodeCount(); u++) graph.node(u).draw(g,COLOR_UNVISITED);
+
+		// draw the path, and what the hierarchy took to build and to query
+		if (done){
+			if (result.found()) drawPath(g, result.path(), COLOR_GOAL);
+			drawStatistics(g);
+		}
+
+		// draw start and goal nodes
+		graph.node(start).draw(g, COLOR_FRINGE);
+		graph.node(goal).draw(g, COLOR_GOAL);
+
+	}
+
+	/**
+	 * Write the hierarchy's figures in the top left corner.
+	 */
+	private void drawStatistics(Graphics g){
+		String[] lines = {
+			String.format("preprocessing: %.1f ms, %d rounds", hierarchy.preprocessingNanos() / 1e6, hierarchy.rounds()),
+			String.format("shortcuts: %d", hierarchy.shortcuts()),
+			String.format("queries: %d, %.1f us on average", hierarchy.queries(), hierarchy.averageQueryNanos() / 1e3),
+			result.found() ? String.format("cost: %.1f", result.cost()) : "no path"
+		};
+		g.setColor(Color.BLACK);
+		for (int i = 0; i < lines.length; i++) g.drawString(lines[i], 10, 20 + 15*i);
+	}
+
+}
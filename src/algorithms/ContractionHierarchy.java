@@ -0,0 +1,802 @@
+package algorithms;
+
+import graph.IndexedGraph;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Queue;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A contraction hierarchy (after Geisberger, Sanders, Schultes and Delling): a graph worked
+ * over once in advance so that shortest paths between two nodes can be found by looking at
+ * only a few hundred nodes, however big the graph is. It uses the same euclidean weights as
+ * A*, so it finds paths just as short.
+ *
+ * Preprocessing takes the nodes away one at a time, least important first. When a node is
+ * taken away (contracted), each shortest path through it between two nodes still there is
+ * replaced by a shortcut edge, unless a short enough path around it (a witness) is found. How
+ * important a node is comes from its edge difference: the shortcuts contracting it would add,
+ * less the edges it would take away, counted twice. Added to that are how many of its
+ * neighbours have gone already and how many levels of shortcuts lie below it, so contraction
+ * spreads out evenly instead of eating into one area. Every node ends up with a rank, the
+ * order it was contracted.
+ *
+ * A query searches upward from both ends at once: forward from the start along edges to higher
+ * ranks, and backward from the goal along edges from higher ranks. Every shortest path climbs
+ * to a highest node and comes back down, so the two searches meet on it. A node is skipped if
+ * an edge down into it shows it can be reached more cheaply another way, as it then can't be
+ * on the shortest path. The shortcuts on the path found are unpacked into the edges they
+ * stand for.
+ *
+ * Preprocessing runs in rounds. Each round contracts every node that is less important than all
+ * its neighbours, then works out how important their neighbours are now. Contracting is cheap
+ * next to that, because every neighbour has to be contracted in trial to see what shortcuts it
+ * would need, so the neighbours are shared out between the threads of a ForkJoinPool. Nodes
+ * picked in the same round are never neighbours, so it makes little difference to the order
+ * that they're contracted one after another rather than in strict priority order.
+ */
+public class ContractionHierarchy {
+
+	// a witness search gives up after settling this many nodes, and adds the shortcut. Trial
+	// contractions only need an estimate, so give up sooner.
+	private static final int WITNESS_LIMIT = 500;
+	private static final int TRIAL_LIMIT = 50;
+
+	// parallel work is split into pieces of about this many nodes
+	private static final int CHUNK = 64;
+
+	// hierarchies of graphs queried recently, built or being built, keyed on the (immutable)
+	// snapshot. A hierarchy keeps no reference to its graph, so it goes once the graph does.
+	private static final Map<IndexedGraph,FutureTask<ContractionHierarchy>> cache = new WeakHashMap<>();
+
+	private final int[] rank;
+
+	// every edge, original or shortcut. A shortcut stands for two edges, first then second;
+	// an original edge has -1 for both.
+	private final int[] edgeFrom;
+	private final int[] edgeTo;
+	private final double[] edgeWeight;
+	private final int[] edgeFirst;
+	private final int[] edgeSecond;
+	private final int shortcuts;
+
+	// edges leading up from each node, and edges coming down into each node, grouped by node
+	// like the graph's own arcs. Each is kept with the node at its other end and its weight,
+	// so a query needn't look them up.
+	private final int[] upOffsets;
+	private final int[] upEdges;
+	private final int[] upEnds;
+	private final double[] upWeights;
+	private final int[] downOffsets;
+	private final int[] downEdges;
+	private final int[] downEnds;
+	private final double[] downWeights;
+
+	private final long preprocessingNanos;
+	private final int rounds;
+
+	// query state, kept between queries so a query allocates nothing it doesn't return
+	private final IndexedHeap forward;
+	private final IndexedHeap backward;
+	private final double[] forwardCosts;
+	private final double[] backwardCosts;
+	private final int[] forwardEdge;
+	private final int[] backwardEdge;
+	private int[] touched = new int[64];
+	private int touchedCount = 0;
+	private long queries = 0;
+	private long queryNanos = 0;
+
+	/**
+	 * Build the hierarchy for a graph, with euclidean weights.
+	 * @param graph: the graph.
+	 */
+	public ContractionHierarchy(IndexedGraph graph){
+		this(graph, AStarSearch.projection(graph), ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @param graph: the graph.
+	 * @param weights: weight of every arc; none may be negative.
+	 * @param pool: threads to preprocess on.
+	 */
+	public ContractionHierarchy(IndexedGraph graph, double[] weights, ForkJoinPool pool){
+		for (double weight : weights){
+			if (weight < 0) throw new IllegalArgumentException("Contraction hierarchies can't be built on a graph with negative edge weights.");
+		}
+		long started = System.nanoTime();
+		int n = graph.nodeCount();
+		Builder builder = new Builder(graph, weights, pool);
+		builder.contractAll();
+		this.rank = builder.rank;
+		this.edgeFrom = Arrays.copyOf(builder.from, builder.edgeCount);
+		this.edgeTo = Arrays.copyOf(builder.to, builder.edgeCount);
+		this.edgeWeight = Arrays.copyOf(builder.weight, builder.edgeCount);
+		this.edgeFirst = Arrays.copyOf(builder.first, builder.edgeCount);
+		this.edgeSecond = Arrays.copyOf(builder.second, builder.edgeCount);
+		this.shortcuts = builder.shortcuts;
+		this.rounds = builder.rounds;
+
+		// every node was left with only the edges to nodes contracted after it: those out of
+		// it go up, and those into it come down
+		upOffsets = new int[n+1];
+		downOffsets = new int[n+1];
+		for (int u = 0; u < n; u++){
+			upOffsets[u+1] = builder.outSize[u];
+			downOffsets[u+1] = builder.inSize[u];
+		}
+		for (int u = 0; u < n; u++){
+			upOffsets[u+1] += upOffsets[u];
+			downOffsets[u+1] += downOffsets[u];
+		}
+		upEdges = new int[upOffsets[n]];
+		upEnds = new int[upOffsets[n]];
+		upWeights = new double[upOffsets[n]];
+		downEdges = new int[downOffsets[n]];
+		downEnds = new int[downOffsets[n]];
+		downWeights = new double[downOffsets[n]];
+		for (int u = 0; u < n; u++){
+			for (int i = 0; i < builder.outSize[u]; i++){
+				int e = builder.out[u][i];
+				int at = upOffsets[u] + i;
+				upEdges[at] = e;
+				upEnds[at] = edgeTo[e];
+				upWeights[at] = edgeWeight[e];
+			}
+			for (int i = 0; i < builder.inSize[u]; i++){
+				int e = builder.in[u][i];
+				int at = downOffsets[u] + i;
+				downEdges[at] = e;
+				downEnds[at] = edgeFrom[e];
+				downWeights[at] = edgeWeight[e];
+			}
+		}
+
+		forward = new IndexedHeap(n);
+		backward = new IndexedHeap(n);
+		forwardCosts = new double[n];
+		backwardCosts = new double[n];
+		forwardEdge = new int[n];
+		backwardEdge = new int[n];
+		Arrays.fill(forwardCosts, Double.POSITIVE_INFINITY);
+		Arrays.fill(backwardCosts, Double.POSITIVE_INFINITY);
+		preprocessingNanos = System.nanoTime() - started;
+	}
+
+	/**
+	 * Return the hierarchy of a graph, building it only if it hasn't been already. The graph
+	 * must not change afterwards; snapshots from Graph.freeze() don't.
+	 * @param graph: the graph.
+	 * @return: its hierarchy, with euclidean weights.
+	 */
+	public static ContractionHierarchy of(final IndexedGraph graph){
+
+		// claim the graph's entry under the lock, but build outside it, so callers whose
+		// hierarchy is ready, or is another graph's, don't wait for this one
+		FutureTask<ContractionHierarchy> task;
+		synchronized (cache){
+			task = cache.get(graph);
+			if (task == null){
+				task = new FutureTask<>(new Callable<ContractionHierarchy>(){
+					@Override
+					public ContractionHierarchy call(){
+						return new ContractionHierarchy(graph);
+					}
+				});
+				cache.put(graph, task);
+			}
+		}
+
+		// whoever gets here first builds it; anyone else asking for it waits
+		task.run();
+		boolean interrupted = false;
+		try{
+			while (true){
+				try{
+					return task.get();
+				}
+				catch (InterruptedException e){
+					interrupted = true;
+				}
+				catch (ExecutionException e){
+					synchronized (cache){
+						if (cache.get(graph) == task) cache.remove(graph);
+					}
+					if (e.getCause() instanceof RuntimeException) throw (RuntimeException)e.getCause();
+					if (e.getCause() instanceof Error) throw (Error)e.getCause();
+					throw new IllegalStateException(e.getCause());
+				}
+			}
+		}
+		finally{
+			if (interrupted) Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Find the shortest path between two nodes.
+	 * @param start: id of the node to start from.
+	 * @param goal: id of the node to search for.
+	 * @return: the path and its cost; expanded counts the nodes settled by both searches.
+	 */
+	public synchronized PathResult solve(int start, int goal){
+		if (start < 0 || goal < 0) throw new IllegalArgumentException("Start and goal must be nodes in the graph.");
+		long started = System.nanoTime();
+		reach(forwardCosts, forwardEdge, start, 0, -1);
+		reach(backwardCosts, backwardEdge, goal, 0, -1);
+		forward.offer(start, 0);
+		backward.offer(goal, 0);
+
+		// search up from both ends, each side until it can't find anything shorter
+		double best = Double.POSITIVE_INFINITY;
+		int meeting = -1;
+		int expanded = 0;
+		while (true){
+			boolean forwardLive = !forward.isEmpty() && forward.key(forward.peek()) < best;
+			boolean backwardLive = !backward.isEmpty() && backward.key(backward.peek()) < best;
+			if (!forwardLive && !backwardLive) break;
+			boolean goForward = forwardLive && (!backwardLive || forward.key(forward.peek()) <= backward.key(backward.peek()));
+			IndexedHeap heap = goForward ? forward : backward;
+			double[] costs = goForward ? forwardCosts : backwardCosts;
+			double[] other = goForward ? backwardCosts : forwardCosts;
+			int[] parents = goForward ? forwardEdge : backwardEdge;
+			int[] offsets = goForward ? upOffsets : downOffsets;
+			int[] edges = goForward ? upEdges : downEdges;
+			int[] ends = goForward ? upEnds : downEnds;
+			double[] weights = goForward ? upWeights : downWeights;
+
+			int u = heap.poll();
+			expanded++;
+			double here = costs[u];
+			if (here + other[u] < best){
+				best = here + other[u];
+				meeting = u;
+			}
+			if (stalled(u, here, goForward)) continue;
+			for (int i = offsets[u]; i < offsets[u+1]; i++){
+				int v = ends[i];
+				double cost = here + weights[i];
+				if (cost >= costs[v]) continue;
+				reach(costs, parents, v, cost, edges[i]);
+				heap.offer(v, cost);
+			}
+		}
+
+		PathResult result = meeting < 0 ? new PathResult(null, 0, expanded) : unpack(meeting, expanded);
+
+		// put the query state back how it was
+		for (int i = 0; i < touchedCount; i++){
+			forwardCosts[touched[i]] = Double.POSITIVE_INFINITY;
+			backwardCosts[touched[i]] = Double.POSITIVE_INFINITY;
+		}
+		touchedCount = 0;
+		forward.clear();
+		backward.clear();
+		queries++;
+		queryNanos += System.nanoTime() - started;
+		return result;
+	}
+
+	/**
+	 * Stall-on-demand: a node the search reached more cheaply by coming down an edge from a
+	 * node above it can't be on a shortest path up, so there's no need to go on from it.
+	 */
+	private boolean stalled(int node, double cost, boolean goForward){
+		double[] costs = goForward ? forwardCosts : backwardCosts;
+		int[] offsets = goForward ? downOffsets : upOffsets;
+		int[] ends = goForward ? downEnds : upEnds;
+		double[] weights = goForward ? downWeights : upWeights;
+		for (int i = offsets[node]; i < offsets[node+1]; i++){
+			if (costs[ends[i]] + weights[i] < cost) return true;
+		}
+		return false;
+	}
+
+	private void reach(double[] costs, int[] parents, int node, double cost, int edge){
+		if (forwardCosts[node] == Double.POSITIVE_INFINITY && backwardCosts[node] == Double.POSITIVE_INFINITY){
+			if (touchedCount == touched.length) touched = Arrays.copyOf(touched, touchedCount*2);
+			touched[touchedCount++] = node;
+		}
+		costs[node] = cost;
+		parents[node] = edge;
+	}
+
+	/**
+	 * Follow both searches back from where they met, and unpack every shortcut on the way.
+	 */
+	private PathResult unpack(int meeting, int expanded){
+
+		// edges from the start up to the meeting node, then down to the goal
+		int[] stack = new int[16];
+		int size = 0;
+		for (int u = meeting; forwardEdge[u] >= 0; u = edgeFrom[forwardEdge[u]]){
+			if (size == stack.length) stack = Arrays.copyOf(stack, size*2);
+			stack[size++] = forwardEdge[u];
+		}
+		int[] top = new int[16];
+		int count = 0;
+		for (int u = meeting; backwardEdge[u] >= 0; u = edgeTo[backwardEdge[u]]){
+			if (count == top.length) top = Arrays.copyOf(top, count*2);
+			top[count++] = backwardEdge[u];
+		}
+
+		// a stack of edges still to unpack, the first edge of the path on top
+		if (size + count > stack.length) stack = Arrays.copyOf(stack, size + count);
+		System.arraycopy(stack, 0, stack, count, size);
+		for (int i = 0; i < count; i++) stack[count-1-i] = top[i];
+		size += count;
+
+		int[] path = new int[16];
+		int length = 0;
+		path[length++] = size == 0 ? meeting : edgeFrom[stack[size-1]];
+		double cost = 0;
+		while (size > 0){
+			int e = stack[--size];
+			if (edgeFirst[e] >= 0){
+				if (size + 2 > stack.length) stack = Arrays.copyOf(stack, stack.length*2);
+				stack[size++] = edgeSecond[e];
+				stack[size++] = edgeFirst[e];
+				continue;
+			}
+			if (length == path.length) path = Arrays.copyOf(path, length*2);
+			path[length++] = edgeTo[e];
+			cost += edgeWeight[e];
+		}
+		return new PathResult(Arrays.copyOf(path, length), cost, expanded);
+	}
+
+	/**
+	 * @param node: id of a node.
+	 * @return: the order it was contracted in, from 0.
+	 */
+	public int rank(int node){
+		return rank[node];
+	}
+
+	/**
+	 * @return: number of shortcut edges added.
+	 */
+	public int shortcuts(){
+		return shortcuts;
+	}
+
+	/**
+	 * @return: number of rounds of contraction.
+	 */
+	public int rounds(){
+		return rounds;
+	}
+
+	/**
+	 * @return: time taken to build the hierarchy, in nanoseconds.
+	 */
+	public long preprocessingNanos(){
+		return preprocessingNanos;
+	}
+
+	/**
+	 * @return: number of queries answered so far.
+	 */
+	public synchronized long queries(){
+		return queries;
+	}
+
+	/**
+	 * @return: average time taken to answer a query so far, in nanoseconds.
+	 */
+	public synchronized double averageQueryNanos(){
+		return queries == 0 ? 0 : (double)queryNanos / queries;
+	}
+
+	/**
+	 * The graph as it's being contracted: every edge so far, and the edges into and out of each
+	 * node. When a node is contracted its edges are taken out of its neighbours' lists, so the
+	 * nodes still there only see each other, but it keeps its own: by the end every node has
+	 * just the edges to nodes contracted after it.
+	 */
+	private static class Builder{
+
+		private final int n;
+		private final ForkJoinPool pool;
+
+		private int[] from;
+		private int[] to;
+		private double[] weight;
+		private int[] first;
+		private int[] second;
+		private int edgeCount = 0;
+		private int shortcuts = 0;
+		private int rounds = 0;
+
+		private final int[][] out;
+		private final int[][] in;
+		private final int[] outSize;
+		private final int[] inSize;
+
+		private final boolean[] contracted;
+		private final int[] rank;
+		private final int[] priority;
+		private final int[] gone;  // number of neighbours contracted already
+		private final int[] depth; // one more than the deepest neighbour contracted already
+
+		// witness searches not in use; there are never more than the threads that have
+		// worked on this hierarchy, and they go with the builder once it's done
+		private final Queue<Witness> witnesses = new ConcurrentLinkedQueue<>();
+
+		private Builder(IndexedGraph graph, double[] weights, ForkJoinPool pool){
+			this.n = graph.nodeCount();
+			this.pool = pool;
+			int m = graph.arcCount();
+			from = new int[m];
+			to = new int[m];
+			weight = new double[m];
+			first = new int[m];
+			second = new int[m];
+			out = new int[n][];
+			in = new int[n][];
+			outSize = new int[n];
+			inSize = new int[n];
+			for (int u = 0; u < n; u++){
+				out[u] = new int[Math.max(2, graph.degree(u))];
+				in[u] = new int[2];
+			}
+			contracted = new boolean[n];
+			rank = new int[n];
+			priority = new int[n];
+			gone = new int[n];
+			depth = new int[n];
+
+			// parallel arcs become one edge with the lightest weight; loops are dropped
+			for (int u = 0; u < n; u++){
+				for (int arc = graph.firstArc(u); arc < graph.endArc(u); arc++){
+					int v = graph.target(arc);
+					if (v != u) connect(u, v, weights[arc], -1, -1);
+				}
+			}
+		}
+
+		/**
+		 * Contract every node, a round at a time.
+		 */
+		private void contractAll(){
+			boolean[] marked = new boolean[n];
+			int[] remaining = new int[n];
+			for (int u = 0; u < n; u++) remaining[u] = u;
+			int count = n;
+			pool.invoke(new Work(Work.PRIORITY, remaining, null, 0, count));
+			int next = 0;
+			while (count > 0){
+				rounds++;
+
+				// pick the nodes less important than all their neighbours
+				boolean[] picked = new boolean[count];
+				pool.invoke(new Work(Work.PICK, remaining, picked, 0, count));
+				int size = 0;
+				for (int i = 0; i < count; i++) if (picked[i]) size++;
+				int[] round = new int[size];
+				size = 0;
+				for (int i = 0; i < count; i++) if (picked[i]) round[size++] = remaining[i];
+				// contract them, adding the shortcuts each one needs
+				Witness witness = borrow();
+				for (int v : round){
+					int[] found = shortcutsFor(v, witness, WITNESS_LIMIT);
+					for (int j = 0; j < found.length; j += 2){
+						int e1 = found[j], e2 = found[j+1];
+						if (connect(from[e1], to[e2], weight[e1] + weight[e2], e1, e2)) shortcuts++;
+					}
+					contracted[v] = true;
+					rank[v] = next++;
+					unlink(v);
+				}
+				witnesses.offer(witness);
+
+				// the neighbours of contracted nodes have changed, so work out their priority again
+				int[] touched = new int[16];
+				int touchedCount = 0;
+				for (int v : round){
+					for (int k = 0; k < 2; k++){
+						int[] edges = k == 0 ? out[v] : in[v];
+						int edgesSize = k == 0 ? outSize[v] : inSize[v];
+						for (int i = 0; i < edgesSize; i++){
+							int w = k == 0 ? to[edges[i]] : from[edges[i]];
+							if (marked[w]) continue;
+							marked[w] = true;
+							gone[w]++;
+							depth[w] = Math.max(depth[w], depth[v]+1);
+							if (touchedCount == touched.length) touched = Arrays.copyOf(touched, touchedCount*2);
+							touched[touchedCount++] = w;
+						}
+					}
+				}
+				for (int i = 0; i < touchedCount; i++) marked[touched[i]] = false;
+				pool.invoke(new Work(Work.PRIORITY, touched, null, 0, touchedCount));
+
+				int kept = 0;
+				for (int i = 0; i < count; i++) if (!contracted[remaining[i]]) remaining[kept++] = remaining[i];
+				count = kept;
+			}
+		}
+
+		/**
+		 * @return: a witness search nobody else is using, made if there isn't one. Give it
+		 * back to the witnesses once done with it.
+		 */
+		private Witness borrow(){
+			Witness witness = witnesses.poll();
+			return witness != null ? witness : new Witness(n);
+		}
+
+		/**
+		 * Take a contracted node's edges out of the lists of the neighbours still there.
+		 */
+		private void unlink(int v){
+			for (int i = 0; i < outSize[v]; i++){
+				int e = out[v][i];
+				int w = to[e];
+				inSize[w] = remove(in[w], inSize[w], e);
+			}
+			for (int i = 0; i < inSize[v]; i++){
+				int e = in[v][i];
+				int u = from[e];
+				outSize[u] = remove(out[u], outSize[u], e);
+			}
+		}
+
+		/**
+		 * Remove an edge from a list, moving the last one into its place.
+		 * @return: the new size of the list.
+		 */
+		private static int remove(int[] edges, int size, int e){
+			for (int i = 0; i < size; i++){
+				if (edges[i] == e){
+					edges[i] = edges[size-1];
+					return size-1;
+				}
+			}
+			return size;
+		}
+
+		/**
+		 * Add an edge from u to v, unless there's one already at least as light; a heavier one
+		 * is replaced.
+		 * @return: true if the edge was added.
+		 */
+		private boolean connect(int u, int v, double w, int e1, int e2){
+			int old = -1;
+			for (int i = 0; i < outSize[u]; i++){
+				if (to[out[u][i]] == v){
+					old = i;
+					break;
+				}
+			}
+			if (old >= 0 && weight[out[u][old]] <= w) return false;
+
+			if (edgeCount == from.length){
+				int capacity = Math.max(16, edgeCount*2);
+				from = Arrays.copyOf(from, capacity);
+				to = Arrays.copyOf(to, capacity);
+				weight = Arrays.copyOf(weight, capacity);
+				first = Arrays.copyOf(first, capacity);
+				second = Arrays.copyOf(second, capacity);
+			}
+			int e = edgeCount++;
+			from[e] = u;
+			to[e] = v;
+			weight[e] = w;
+			first[e] = e1;
+			second[e] = e2;
+
+			if (old >= 0){
+				int replaced = out[u][old];
+				out[u][old] = e;
+				for (int i = 0; i < inSize[v]; i++) if (in[v][i] == replaced) in[v][i] = e;
+				return true;
+			}
+			if (outSize[u] == out[u].length) out[u] = Arrays.copyOf(out[u], outSize[u]*2);
+			out[u][outSize[u]++] = e;
+			if (inSize[v] == in[v].length) in[v] = Arrays.copyOf(in[v], inSize[v]*2);
+			in[v][inSize[v]++] = e;
+			return true;
+		}
+
+		/**
+		 * Find the shortcuts contracting a node would need, without contracting it.
+		 * @param v: the node.
+		 * @param witness: a witness search to use.
+		 * @param settle: most nodes to settle in each witness search.
+		 * @return: the pair of edges (into v, then out of v) each shortcut stands for.
+		 */
+		private int[] shortcutsFor(int v, Witness witness, int settle){
+			int[] found = new int[0];
+			int count = 0;
+			for (int i = 0; i < inSize[v]; i++){
+				int e1 = in[v][i];
+				int u = from[e1];
+
+				// look for a way around v to each neighbour, no longer than going through it
+				double limit = 0;
+				boolean any = false;
+				for (int j = 0; j < outSize[v]; j++){
+					int w = to[out[v][j]];
+					if (w == u) continue;
+					limit = Math.max(limit, weight[e1] + weight[out[v][j]]);
+					any = true;
+				}
+				if (!any) continue;
+				for (int j = 0; j < outSize[v]; j++){
+					int w = to[out[v][j]];
+					if (w != u) witness.aim(w);
+				}
+				witness.search(this, u, v, limit, settle);
+				for (int j = 0; j < outSize[v]; j++){
+					int e2 = out[v][j];
+					int w = to[e2];
+					if (w == u) continue;
+					if (witness.cost(w) <= weight[e1] + weight[e2]) continue;
+					if (count == found.length) found = Arrays.copyOf(found, Math.max(8, count*2));
+					found[count++] = e1;
+					found[count++] = e2;
+				}
+				witness.reset();
+			}
+			return Arrays.copyOf(found, count);
+		}
+
+		/**
+		 * @return: the edge difference of a node, plus the neighbours contracted already.
+		 */
+		private int priorityOf(int v, Witness witness){
+			int removed = inSize[v] + outSize[v];
+			return 2 * (shortcutsFor(v, witness, TRIAL_LIMIT).length / 2 - removed) + gone[v] + depth[v];
+		}
+
+		/**
+		 * @return: true if v is less important than every neighbour still there.
+		 */
+		private boolean isLocalMinimum(int v){
+			for (int k = 0; k < 2; k++){
+				int[] edges = k == 0 ? out[v] : in[v];
+				int size = k == 0 ? outSize[v] : inSize[v];
+				for (int i = 0; i < size; i++){
+					int w = k == 0 ? to[edges[i]] : from[edges[i]];
+					if (priority[w] < priority[v] || (priority[w] == priority[v] && w < v)) return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * One kind of work on a range of nodes, split in two until it's small enough to do in
+		 * one go: working out their priority, or picking those to contract.
+		 */
+		@SuppressWarnings("serial")
+		private class Work extends RecursiveAction{
+			private static final int PRIORITY = 0;
+			private static final int PICK = 1;
+
+			private final int kind;
+			private final int[] nodes;
+			private final boolean[] picked;
+			private final int from;
+			private final int to;
+			private Work(int kind, int[] nodes, boolean[] picked, int from, int to){
+				this.kind = kind;
+				this.nodes = nodes;
+				this.picked = picked;
+				this.from = from;
+				this.to = to;
+			}
+
+			@Override
+			protected void compute(){
+				if (to - from > CHUNK){
+					int mid = (from + to) >>> 1;
+					invokeAll(new Work(kind, nodes, picked, from, mid), new Work(kind, nodes, picked, mid, to));
+					return;
+				}
+				if (kind == PICK){
+					for (int i = from; i < to; i++) picked[i] = isLocalMinimum(nodes[i]);
+					return;
+				}
+				Witness witness = borrow();
+				for (int i = from; i < to; i++) priority[nodes[i]] = priorityOf(nodes[i], witness);
+				witnesses.offer(witness);
+			}
+		}
+	}
+
+	/**
+	 * A small Dijkstra search from one node, looking for paths that avoid the node being
+	 * contracted and everything contracted before it. It stops as soon as it has settled every
+	 * node it was aimed at.
+	 */
+	private static class Witness{
+		private final IndexedHeap heap;
+		private final double[] costs;
+		private int[] touched = new int[64];
+		private int touchedCount = 0;
+
+		// the nodes a path is wanted to, and how many of them are still to be settled
+		private final boolean[] target;
+		private int[] targets = new int[16];
+		private int targetCount = 0;
+		private int unsettled = 0;
+
+		private Witness(int n){
+			heap = new IndexedHeap(n);
+			costs = new double[n];
+			target = new boolean[n];
+			Arrays.fill(costs, Double.POSITIVE_INFINITY);
+		}
+
+		/**
+		 * Look for a path to a node in the next search.
+		 * @param node: id of the node.
+		 */
+		private void aim(int node){
+			if (target[node]) return;
+			target[node] = true;
+			if (targetCount == targets.length) targets = Arrays.copyOf(targets, targetCount*2);
+			targets[targetCount++] = node;
+			unsettled++;
+		}
+
+		/**
+		 * @param builder: the graph being contracted.
+		 * @param source: node to search from.
+		 * @param avoid: node being contracted.
+		 * @param limit: don't look further than this.
+		 * @param settle: most nodes to settle.
+		 */
+		private void search(Builder builder, int source, int avoid, double limit, int settle){
+			visit(source, 0);
+			heap.offer(source, 0);
+			int settled = 0;
+			while (!heap.isEmpty() && settled < settle){
+				int u = heap.poll();
+				double here = costs[u];
+				if (here > limit) break;
+				settled++;
+				if (target[u] && --unsettled == 0) break;
+				for (int i = 0; i < builder.outSize[u]; i++){
+					int e = builder.out[u][i];
+					int v = builder.to[e];
+					if (v == avoid) continue;
+					double cost = here + builder.weight[e];
+					if (cost >= costs[v]) continue;
+					visit(v, cost);
+					heap.offer(v, cost);
+				}
+			}
+		}
+
+		private void visit(int node, double cost){
+			if (costs[node] == Double.POSITIVE_INFINITY){
+				if (touchedCount == touched.length) touched = Arrays.copyOf(touched, touchedCount*2);
+				touched[touchedCount++] = node;
+			}
+			costs[node] = cost;
+		}
+
+		private double cost(int node){
+			return costs[node];
+		}
+
+		private void reset(){
+			for (int i = 0; i < touchedCount; i++) costs[touched[i]] = Double.POSITIVE_INFINITY;
+			touchedCount = 0;
+			for (int i = 0; i < targetCount; i++) target[targets[i]] = false;
+			targetCount = 0;
+			unsettled = 0;
+			heap.clear();
+		}
+	}
+
+}
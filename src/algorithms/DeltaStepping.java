@@ -0,0 +1,85 @@
+package algorithms;
+
+import graph.Graph;
+import graph.IndexedGraph;
+import graph.Node;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.util.concurrent.ForkJoinPool;
+
+public class DeltaStepping extends StagedAlgorithm{
+
+	private IndexedGraph graph;
+	// the search run, a bucket per stage: shown is the number of buckets settled
+	private DeltaSteppingSearch search;
+
+	private Color COLOR_TREE = new Color(152,251,152);
+	private Color COLOR_SETTLED = new Color(46,139,87);
+	private Color COLOR_BUCKET = new Color(143,188,143);
+	private Color COLOR_SOURCE = new Color(95,158,160);
+	private Color COLOR_UNVISITED = Color.white;
+
+	public DeltaStepping(Graph graph, Node source){
+		this(graph.freeze(), source);
+	}
+
+	public DeltaStepping(IndexedGraph graph, Node source){
+		this.graph = graph;
+		this.search = new DeltaSteppingSearch(graph, graph.id(source));
+
+		/* Add the initial state: nothing settled. */
+		advance(false,false);
+	}
+
+	@Override
+	protected boolean step(){
+
+		/* Settle the next bucket; when there isn't one, add the final, 'complete' state. */
+		boolean more = search.step();
+		advance(more,!more);
+		return more;
+
+	}
+
+	/**
+	 * Find the distance from a node to every other node without recording any iterations.
+	 * @param graph: graph to search.
+	 * @param source: node to find distances from.
+	 * @param delta: width of each bucket.
+	 * @param pool: threads to search on.
+	 * @return: distance to each node by id, or DeltaSteppingSearch.UNREACHABLE.
+	 */
+	public static long[] solve(IndexedGraph graph, Node source, int delta, ForkJoinPool pool){
+		return new DeltaSteppingSearch(graph, graph.id(source), delta, pool).solve();
+	}
+
+	@Override
+	public void draw(Graphics g) {
+
+		// draw edges, and the tree of shortest paths once it's known
+		for (int e = 0; e < graph.edgeCount(); e++) graph.edge(e).draw(g, Color.DARK_GRAY);
+		if (done){
+			for (int u = 0; u < graph.nodeCount(); u++){
+				if (search.parentArc(u) >= 0) graph.edge(graph.arcEdge(search.parentArc(u))).draw(g, COLOR_TREE);
+			}
+		}
+
+		// draw nodes: those in the last bucket settled stand out from the ones before
+		long below = search.settledBelow(shown);
+		long last = shown == 0 ? 0 : search.settledBelow(shown-1);
+		for (int u = 0; u < graph.nodeCount(); u++){
+			Node node = graph.node(u);
+			long distance = search.distance(u);
+			if (distance >= below) node.draw(g, COLOR_UNVISITED);
+			else{
+				node.draw(g, (distance >= last && !done) ? COLOR_BUCKET : COLOR_SETTLED);
+				g.setColor(Color.BLACK);
+				g.drawString(""+distance, node.X, node.Y);
+			}
+		}
+		graph.node(search.source()).draw(g, COLOR_SOURCE);
+
+	}
+
+}
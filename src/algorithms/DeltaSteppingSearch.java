@@ -0,0 +1,361 @@
+package algorithms;
+
+import graph.IndexedGraph;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Single-source shortest paths by delta-stepping (Meyer and Sanders), spread over the threads
+ * of a ForkJoinPool. Like Dijkstra's algorithm it uses the weights the user gave the edges,
+ * which must not be negative.
+ *
+ * Rather than settling one node at a time, nodes are kept in buckets of width delta by their
+ * distance, and a whole bucket is settled at once. Arcs no heavier than delta are light: they
+ * can lead back into the bucket being settled, so they're relaxed in rounds until the bucket
+ * stops changing. Heavier arcs can only lead to later buckets, so they're relaxed once, after
+ * the bucket is settled. The arcs of every node in a round are relaxed in parallel, lowering
+ * distances with an atomic compare-and-set.
+ *
+ * A small delta does little wasted work but has little to do in parallel at once; a large one
+ * the reverse. With delta 1 and whole-number weights it behaves like Dijkstra's algorithm with
+ * a bucket queue, and with an infinite delta like Bellman-Ford.
+ */
+public class DeltaSteppingSearch {
+
+	/** Distance of a node that can't be reached. */
+	public static final long UNREACHABLE = Long.MAX_VALUE;
+
+	// rounds are split into pieces of about this many nodes
+	private static final int CHUNK = 256;
+
+	private static final int[] NONE = new int[0];
+
+	private final IndexedGraph graph;
+	private final ForkJoinPool pool;
+	private final int source;
+	private final int delta;
+
+	private final AtomicLongArray distances;
+
+	// buckets in a circle: bucket b is at b % buckets.length. Keys never spread further than
+	// the heaviest arc past the bucket being settled, so that's all the buckets there need be.
+	private final int[][] buckets;
+	private final int[] bucketSizes;
+	private long pending = 0;
+	private long current = 0;
+
+	// marks for nodes already taken out in this round (by round) and this bucket (by bucket)
+	private final int[] roundMarks;
+	private final int[] bucketMarks;
+	private int round = 0;
+
+	// buckets settled so far, in order, and how much work they took
+	private long[] settled = new long[16];
+	private int settledCount = 0;
+	private long relaxations = 0;
+	private int rounds = 0;
+
+	private int[] parentArc = null;
+
+	/**
+	 * @param graph: graph to search.
+	 * @param source: id of the node to find distances from.
+	 */
+	public DeltaSteppingSearch(IndexedGraph graph, int source){
+		this(graph, source, defaultDelta(graph), ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @param graph: graph to search.
+	 * @param source: id of the node to find distances from.
+	 * @param delta: width of each bucket; at least 1.
+	 * @param pool: threads to search on.
+	 */
+	public DeltaSteppingSearch(IndexedGraph graph, int source, int delta, ForkJoinPool pool){
+		if (source < 0) throw new IllegalArgumentException("Source must be a node in the graph.");
+		if (delta < 1) throw new IllegalArgumentException("Bucket width must be at least 1.");
+		int max = 0;
+		for (int arc = 0; arc < graph.arcCount(); arc++){
+			int weight = graph.weight(arc);
+			if (weight < 0) throw new IllegalArgumentException("Delta-stepping can't be used on a graph with negative edge weights.");
+			max = Math.max(max, weight);
+		}
+		this.graph = graph;
+		this.pool = pool;
+		this.source = source;
+		this.delta = delta;
+		int n = graph.nodeCount();
+		distances = new AtomicLongArray(n);
+		for (int u = 0; u < n; u++) distances.set(u, UNREACHABLE);
+		buckets = new int[max / delta + 2][];
+		bucketSizes = new int[buckets.length];
+		Arrays.fill(buckets, NONE);
+		roundMarks = new int[n];
+		bucketMarks = new int[n];
+		Arrays.fill(roundMarks, -1);
+		Arrays.fill(bucketMarks, -1);
+		distances.set(source, 0);
+		insert(source, 0);
+	}
+
+	/**
+	 * A bucket width that usually works well: the heaviest weight divided by the average
+	 * number of arcs out of a node.
+	 * @param graph: the graph.
+	 * @return: a bucket width of at least 1.
+	 */
+	public static int defaultDelta(IndexedGraph graph){
+		int max = 0;
+		for (int arc = 0; arc < graph.arcCount(); arc++) max = Math.max(max, graph.weight(arc));
+		double degree = graph.nodeCount() == 0 ? 1 : Math.max(1.0, (double)graph.arcCount() / graph.nodeCount());
+		return Math.max(1, (int)(max / degree));
+	}
+
+	/**
+	 * Settle the next bucket with anything in it.
+	 * @return: true if a bucket was settled, false once every reachable node has been.
+	 */
+	public boolean step(){
+		if (pending == 0) return false;
+		while (bucketSizes[slot(current)] == 0) current++;
+		int slot = slot(current);
+
+		// relax light arcs in rounds until nothing more falls into this bucket
+		int[] removed = NONE;
+		int removedCount = 0;
+		while (bucketSizes[slot] > 0){
+			int[] taken = buckets[slot];
+			int size = bucketSizes[slot];
+			buckets[slot] = NONE;
+			bucketSizes[slot] = 0;
+			pending -= size;
+
+			// drop nodes that have moved to a lower bucket or are in this round twice
+			int count = 0;
+			for (int i = 0; i < size; i++){
+				int u = taken[i];
+				if (distances.get(u) / delta != current || roundMarks[u] == round) continue;
+				roundMarks[u] = round;
+				taken[count++] = u;
+				if (bucketMarks[u] != settledCount){
+					bucketMarks[u] = settledCount;
+					if (removedCount == removed.length) removed = Arrays.copyOf(removed, Math.max(16, removedCount*2));
+					removed[removedCount++] = u;
+				}
+			}
+			round++;
+			rounds++;
+			relax(taken, count, true);
+		}
+
+		// the bucket is settled: its heavy arcs can only reach later buckets
+		relax(removed, removedCount, false);
+
+		if (settledCount == settled.length) settled = Arrays.copyOf(settled, settledCount*2);
+		settled[settledCount++] = current;
+		current++;
+		return true;
+	}
+
+	/**
+	 * Run the search to the end.
+	 * @return: distance from the source to every node, or UNREACHABLE.
+	 */
+	public long[] solve(){
+		while (step());
+		long[] result = new long[graph.nodeCount()];
+		for (int u = 0; u < result.length; u++) result[u] = distances.get(u);
+		return result;
+	}
+
+	/**
+	 * Relax the light or heavy arcs out of some nodes in parallel, and put the nodes whose
+	 * distances went down into their new buckets.
+	 */
+	private void relax(int[] nodes, int count, boolean light){
+		if (count == 0) return;
+		Relaxed relaxed = pool.invoke(new Relax(nodes, 0, count, light));
+		relaxations += relaxed.relaxations;
+		for (int v : relaxed.nodes) insert(v, distances.get(v));
+	}
+
+	private void insert(int node, long distance){
+		int slot = slot(distance / delta);
+		int size = bucketSizes[slot];
+		if (size == buckets[slot].length) buckets[slot] = Arrays.copyOf(buckets[slot], Math.max(16, size*2));
+		buckets[slot][size] = node;
+		bucketSizes[slot] = size+1;
+		pending++;
+	}
+
+	private int slot(long bucket){
+		return (int)(bucket % buckets.length);
+	}
+
+	/**
+	 * Nodes whose distances went down, and how many arcs were relaxed to find them.
+	 */
+	private static class Relaxed{
+		private final int[] nodes;
+		private final long relaxations;
+		private Relaxed(int[] nodes, long relaxations){
+			this.nodes = nodes;
+			this.relaxations = relaxations;
+		}
+	}
+
+	/**
+	 * Relaxes the light or heavy arcs out of a range of nodes, splitting the range in two
+	 * until it's small enough to do in one go.
+	 */
+	@SuppressWarnings("serial")
+	private class Relax extends RecursiveTask<Relaxed>{
+		private final int[] nodes;
+		private final int from;
+		private final int to;
+		private final boolean light;
+		private Relax(int[] nodes, int from, int to, boolean light){
+			this.nodes = nodes;
+			this.from = from;
+			this.to = to;
+			this.light = light;
+		}
+
+		@Override
+		protected Relaxed compute(){
+			if (to - from > CHUNK){
+				int mid = (from + to) >>> 1;
+				Relax right = new Relax(nodes, mid, to, light);
+				right.fork();
+				Relaxed left = new Relax(nodes, from, mid, light).compute();
+				Relaxed other = right.join();
+				int[] both = Arrays.copyOf(left.nodes, left.nodes.length + other.nodes.length);
+				System.arraycopy(other.nodes, 0, both, left.nodes.length, other.nodes.length);
+				return new Relaxed(both, left.relaxations + other.relaxations);
+			}
+			int[] lowered = NONE;
+			int count = 0;
+			long relaxations = 0;
+			for (int i = from; i < to; i++){
+				int u = nodes[i];
+				long here = distances.get(u);
+				for (int arc = graph.firstArc(u); arc < graph.endArc(u); arc++){
+					int weight = graph.weight(arc);
+					if ((weight <= delta) != light) continue;
+					relaxations++;
+					int v = graph.target(arc);
+					long distance = here + weight;
+					long old;
+					boolean lower = false;
+					while (distance < (old = distances.get(v))){
+						if (distances.compareAndSet(v, old, distance)){
+							lower = true;
+							break;
+						}
+					}
+					if (!lower) continue;
+					if (count == lowered.length) lowered = Arrays.copyOf(lowered, Math.max(16, count*2));
+					lowered[count++] = v;
+				}
+			}
+			return new Relaxed(Arrays.copyOf(lowered, count), relaxations);
+		}
+	}
+
+	/**
+	 * @param node: id of a node.
+	 * @return: the best distance found to it so far, or UNREACHABLE.
+	 */
+	public long distance(int node){
+		return distances.get(node);
+	}
+
+	/**
+	 * @param node: id of a node.
+	 * @return: true if the node's distance is final.
+	 */
+	public boolean settled(int node){
+		return settledCount > 0 && distances.get(node) < (settled[settledCount-1] + 1) * delta;
+	}
+
+	/**
+	 * @param i: how many buckets had been settled.
+	 * @return: every node closer than this is settled by then.
+	 */
+	public long settledBelow(int i){
+		return i == 0 ? 0 : (settled[i-1] + 1) * delta;
+	}
+
+	/**
+	 * @return: number of buckets settled so far.
+	 */
+	public int bucketsSettled(){
+		return settledCount;
+	}
+
+	/**
+	 * @return: number of arcs relaxed so far.
+	 */
+	public long relaxations(){
+		return relaxations;
+	}
+
+	/**
+	 * @return: number of rounds of light relaxations so far.
+	 */
+	public int rounds(){
+		return rounds;
+	}
+
+	/**
+	 * @return: width of each bucket.
+	 */
+	public int delta(){
+		return delta;
+	}
+
+	/**
+	 * @return: id of the source node.
+	 */
+	public int source(){
+		return source;
+	}
+
+	/**
+	 * Return the arc each node is reached by on a shortest path from the source. Only known
+	 * once the search has finished.
+	 * @param node: id of a node.
+	 * @return: the arc, or -1 for the source and nodes that can't be reached.
+	 */
+	public int parentArc(int node){
+		if (pending > 0) throw new IllegalStateException("Search hasn't finished.");
+		if (parentArc == null){
+
+			// walk out from the source along arcs that lie on shortest paths
+			int n = graph.nodeCount();
+			parentArc = new int[n];
+			Arrays.fill(parentArc, -1);
+			boolean[] seen = new boolean[n];
+			int[] queue = new int[n];
+			int head = 0, tail = 0;
+			queue[tail++] = source;
+			seen[source] = true;
+			while (head < tail){
+				int u = queue[head++];
+				long here = distances.get(u);
+				for (int arc = graph.firstArc(u); arc < graph.endArc(u); arc++){
+					int v = graph.target(arc);
+					if (seen[v] || here + graph.weight(arc) != distances.get(v)) continue;
+					seen[v] = true;
+					parentArc[v] = arc;
+					queue[tail++] = v;
+				}
+			}
+		}
+		return parentArc[node];
+	}
+
+}
@@ -0,0 +1,115 @@
+package algorithms;
+
+import graph.Graph;
+import graph.IndexedGraph;
+import graph.Node;
+
+import java.awt.Color;
+import java.awt.Graphics;
+
+public class Dijkstra extends SearchView{
+
+	private DijkstraSearch search;
+	private int source;
+	private int target;
+
+	/**
+	 * Set up Dijkstra's algorithm.
+	 * @param graph: graph to search.
+	 * @param source: node to find distances from.
+	 * @param target: node to stop at, or null to find the distance to every node.
+	 */
+	public Dijkstra(Graph graph, Node source, Node target){
+		this(graph.freeze(), source, target);
+	}
+
+	public Dijkstra(IndexedGraph graph, Node source, Node target){
+		super(graph, false);
+		this.source = graph.id(source);
+		this.target = (target == null) ? -1 : graph.id(target);
+		this.search = new DijkstraSearch(graph, this.source, this.target);
+		reach(this.source, true);
+
+		// iterations are produced as the user steps through them
+		firstIteration();
+	}
+
+	/**
+	 * Run one iteration of Dijkstra's, recording it.
+	 * @return: true if there are more iterations to come.
+	 */
+	@Override
+	protected boolean step(){
+		Tracer tracer = new Tracer();
+		boolean more = search.step(tracer);
+		if (search.lastPolled() >= 0) visit(search.lastPolled(), true, tracer);
+
+		// finished: show only the path to the target, or the tree of shortest paths
+		if (!more) finish(target >= 0 && search.settled(target) ? target : -1);
+		return more;
+	}
+
+	/**
+	 * Find the distance from a node to every other node without recording any iterations.
+	 * @param graph: graph to search.
+	 * @param source: node to find distances from.
+	 * @return: distance to each node by id, or DijkstraSearch.UNREACHABLE.
+	 */
+	public static long[] solve(IndexedGraph graph, Node source){
+		return DijkstraSearch.distances(graph, graph.id(source));
+	}
+
+	/**
+	 * Find the shortest path between two nodes without recording any iterations.
+	 * @param graph: graph to search.
+	 * @param source: node to start from.
+	 * @param target: node to search for.
+	 * @return: the path and its cost.
+	 */
+	public static PathResult solve(IndexedGraph graph, Node source, Node target){
+		DijkstraSearch search = new DijkstraSearch(graph, graph.id(source), graph.id(target));
+		search.solve();
+		return search.result(graph.id(target));
+	}
+
+	@Override
+	public void draw(Graphics g) {
+
+		// draw all edges
+		for (int e = 0; e < graph.edgeCount(); e++) graph.edge(e).draw(g, Color.DARK_GRAY);
+
+		// draw all nodes, and the distance to each visited one
+		for (int u = 0; u < graph.nodeCount(); u++){
+			Node node = graph.node(u);
+			if (done) node.draw(g, COLOR_UNVISITED);
+			else if (visited(u, true)) node.draw(g, COLOR_VISITED);
+			else if (onFringe(u, true)) node.draw(g, COLOR_FRINGE);
+			else node.draw(g, COLOR_UNVISITED);
+			if (visited(u, true)){
+				g.setColor(Color.BLACK);
+				g.drawString(""+search.distance(u), node.X, node.Y);
+			}
+		}
+
+		// when finished without a target, draw the tree of shortest paths
+		if (done && lastVisited < 0){
+			for (int u = 0; u < graph.nodeCount(); u++){
+				if (!visited(u, true) || search.parentArc(u) < 0) continue;
+				graph.edge(graph.arcEdge(search.parentArc(u))).draw(g, COLOR_PATH);
+				graph.node(u).draw(g, COLOR_PATH);
+			}
+		}
+
+		// draw path from the last visited node (or the target) to the source
+		if (lastVisited >= 0){
+			Color color = (lastVisited == target) ? COLOR_GOAL : COLOR_PATH;
+			drawPath(g, search.pathTo(lastVisited), color);
+		}
+
+		// draw source and target nodes
+		graph.node(source).draw(g, COLOR_GOAL);
+		if (target >= 0) graph.node(target).draw(g, COLOR_GOAL);
+
+	}
+
+}
@@ -0,0 +1,259 @@
+package algorithms;
+
+import graph.IndexedGraph;
+
+import java.util.Arrays;
+
+/**
+ * Dijkstra's algorithm itself, without anything to do with drawing. Unlike A*, it uses the
+ * weights the user gave the edges, so the distances it finds are the true ones. Weights must
+ * not be negative.
+ *
+ * Weights are whole numbers, and usually small ones, so the fringe is a BucketQueue (Dial's
+ * algorithm) whenever the largest weight is no more than DIAL_LIMIT: finding the next node
+ * then costs at most a walk over a few buckets rather than a trip through a heap. Graphs with
+ * larger weights fall back to an IndexedHeap.
+ *
+ * The search runs from a source until it reaches a target, if it's given one, or until every
+ * node it can reach has been visited. Dijkstra drives it one iteration at a time and watches
+ * it through a Trace; solve() runs it straight through.
+ */
+public class DijkstraSearch {
+
+	/** Largest edge weight for which a bucket queue is used. */
+	public static final int DIAL_LIMIT = 1 << 16;
+
+	/** Distance of a node that can't be reached. */
+	public static final long UNREACHABLE = Long.MAX_VALUE;
+
+	private final IndexedGraph graph;
+	private final int source;
+	private final int target;
+
+	// exactly one of these is the fringe
+	private final BucketQueue buckets;
+	private final IndexedHeap heap;
+
+	// search state, one slot per node
+	private final long[] distances;
+	private final int[] parentArc;
+	private final boolean[] settled;
+	private int lastPolled = -1;
+	private int visited = 0;
+
+	/**
+	 * Watches a search as it runs.
+	 */
+	public interface Trace{
+
+		/**
+		 * A node was taken off the fringe; its distance is now final.
+		 * @param node: id of the node.
+		 */
+		void polled(int node);
+
+		/**
+		 * A node was reached for the first time and put onto the fringe.
+		 * @param node: id of the node.
+		 */
+		void pushed(int node);
+
+	}
+
+	/**
+	 * @param graph: graph to search.
+	 * @param source: id of the node to find distances from.
+	 */
+	public DijkstraSearch(IndexedGraph graph, int source){
+		this(graph, source, -1);
+	}
+
+	/**
+	 * @param graph: graph to search.
+	 * @param source: id of the node to find distances from.
+	 * @param target: id of the node to stop at, or -1 to find the distance to every node.
+	 */
+	public DijkstraSearch(IndexedGraph graph, int source, int target){
+		this(graph, source, target, DIAL_LIMIT);
+	}
+
+	/**
+	 * @param dialLimit: largest edge weight for which a bucket queue is used; -1 to always
+	 * use a heap.
+	 */
+	DijkstraSearch(IndexedGraph graph, int source, int target, int dialLimit){
+		if (source < 0) throw new IllegalArgumentException("Source must be a node in the graph.");
+		int max = maxWeight(graph);
+		if (max < 0) throw new IllegalArgumentException("Dijkstra's algorithm can't be used on a graph with negative edge weights.");
+		this.graph = graph;
+		this.source = source;
+		this.target = target;
+		int n = graph.nodeCount();
+		boolean useBuckets = max <= dialLimit;
+		buckets = useBuckets ? new BucketQueue(n, max) : null;
+		heap = useBuckets ? null : new IndexedHeap(n);
+		distances = new long[n];
+		parentArc = new int[n];
+		settled = new boolean[n];
+		Arrays.fill(distances, UNREACHABLE);
+		Arrays.fill(parentArc, -1);
+		distances[source] = 0;
+		offer(source, 0);
+	}
+
+	/**
+	 * Run one iteration: take the closest node off the fringe, visit it, and relax the arcs
+	 * leading out of it.
+	 * @param trace: told what happens, or null.
+	 * @return: true if there are more iterations to come, false once the target has been
+	 * reached or there's nothing left to reach.
+	 */
+	public boolean step(Trace trace){
+
+		// ran out of nodes: everything reachable has been visited
+		if (buckets != null ? buckets.isEmpty() : heap.isEmpty()){
+			lastPolled = -1;
+			return false;
+		}
+
+		// visit the next thing off the fringe
+		int node = buckets != null ? buckets.poll() : heap.poll();
+		settled[node] = true;
+		lastPolled = node;
+		visited++;
+		if (trace != null) trace.polled(node);
+		if (node == target) return false;
+
+		// relax arcs to its neighbours
+		long here = distances[node];
+		for (int arc = graph.firstArc(node); arc < graph.endArc(node); arc++){
+			int neighbour = graph.target(arc);
+			long distance = here + graph.weight(arc);
+			if (distance >= distances[neighbour]) continue;
+			boolean fresh = distances[neighbour] == UNREACHABLE;
+			distances[neighbour] = distance;
+			parentArc[neighbour] = arc;
+			offer(neighbour, distance);
+			if (fresh && trace != null) trace.pushed(neighbour);
+		}
+		return true;
+
+	}
+
+	private void offer(int node, long distance){
+		if (buckets != null) buckets.offer(node, distance);
+		else heap.offer(node, distance);
+	}
+
+	/**
+	 * Run the search to the end without tracing it.
+	 * @return: distance from the source to every node, or UNREACHABLE. If the search has a
+	 * target, only the distances of nodes visited before it are final.
+	 */
+	public long[] solve(){
+		while (step(null));
+		return distances.clone();
+	}
+
+	/**
+	 * Find the distance from a node to every other node, without recording anything.
+	 * @param graph: graph to search.
+	 * @param source: id of the node to find distances from.
+	 * @return: distance to every node, or UNREACHABLE.
+	 */
+	public static long[] distances(IndexedGraph graph, int source){
+		return new DijkstraSearch(graph, source).solve();
+	}
+
+	/**
+	 * @param node: id of a node.
+	 * @return: the best distance found to it so far, or UNREACHABLE; final once it's visited.
+	 */
+	public long distance(int node){
+		return distances[node];
+	}
+
+	/**
+	 * @param node: id of a node.
+	 * @return: true if the node has been visited, so its distance is final.
+	 */
+	public boolean settled(int node){
+		return settled[node];
+	}
+
+	/**
+	 * @param node: id of a visited node.
+	 * @return: the arc it was reached by, or -1 for the source.
+	 */
+	public int parentArc(int node){
+		return parentArc[node];
+	}
+
+	/**
+	 * Return the path from the source to a visited node. A node's path never changes once
+	 * it has been visited.
+	 * @param node: id of a visited node.
+	 * @return: ids of the nodes on the path, starting with the source.
+	 */
+	public int[] pathTo(int node){
+		int length = 1;
+		for (int u = node; parentArc[u] >= 0; u = otherEnd(parentArc[u], u)) length++;
+		int[] path = new int[length];
+		int u = node;
+		for (int i = length-1; i >= 0; i--){
+			path[i] = u;
+			if (i > 0) u = otherEnd(parentArc[u], u);
+		}
+		return path;
+	}
+
+	/**
+	 * @param node: id of the node to find a path to.
+	 * @return: the shortest path from the source to node, as far as the search has got.
+	 */
+	public PathResult result(int node){
+		if (!settled[node]) return new PathResult(null, 0, visited);
+		return new PathResult(pathTo(node), distances[node], visited);
+	}
+
+	private int otherEnd(int arc, int node){
+		int e = graph.arcEdge(arc);
+		int source = graph.edgeSource(e);
+		return source == node ? graph.edgeTarget(e) : source;
+	}
+
+	/**
+	 * @return: id of the node visited by the last step, or -1 if there wasn't one.
+	 */
+	public int lastPolled(){
+		return lastPolled;
+	}
+
+	/**
+	 * @return: id of the source node.
+	 */
+	public int source(){
+		return source;
+	}
+
+	/**
+	 * @return: id of the target node, or -1 if there isn't one.
+	 */
+	public int target(){
+		return target;
+	}
+
+	/**
+	 * @return: the largest weight of any arc in the graph, or -1 if any is negative.
+	 */
+	private static int maxWeight(IndexedGraph graph){
+		int max = 0;
+		for (int arc = 0; arc < graph.arcCount(); arc++){
+			int weight = graph.weight(arc);
+			if (weight < 0) return -1;
+			if (weight > max) max = weight;
+		}
+		return max;
+	}
+
+}
@@ -0,0 +1,90 @@
+package algorithms;
+
+import java.util.Arrays;
+
+/**
+ * A union-find structure over the ids 0..n-1: a collection of disjoint sets that can be merged,
+ * where each set is represented by one of its members. Each id's parent is kept in an int array;
+ * following parents up from any id leads to its set's representative.
+ *
+ * Sets are merged by hanging the smaller under the larger, and finding a representative points
+ * every id on the way straight at it. Together these keep the trees so flat that both operations
+ * take practically constant time. find() is a loop, so long chains can't overflow the stack.
+ */
+public class DisjointSets {
+
+	// parent[u] is u's parent, or -(size of u's set) if u is a representative
+	private final int[] parent;
+	private int count;
+
+	/**
+	 * @param n: number of ids; each starts in a set of its own.
+	 */
+	public DisjointSets(int n){
+		parent = new int[n];
+		Arrays.fill(parent, -1);
+		count = n;
+	}
+
+	/**
+	 * Find the representative of the set containing an id.
+	 * @param u: the id.
+	 * @return: id of the representative.
+	 */
+	public int find(int u){
+		int root = u;
+		while (parent[root] >= 0) root = parent[root];
+		while (parent[u] >= 0){
+			int next = parent[u];
+			parent[u] = root;
+			u = next;
+		}
+		return root;
+	}
+
+	/**
+	 * Merge the sets containing two ids.
+	 * @param u: id in the first set.
+	 * @param v: id in the second set.
+	 * @return: true if they were in different sets, false if they were already in the same one.
+	 */
+	public boolean union(int u, int v){
+		int a = find(u);
+		int b = find(v);
+		if (a == b) return false;
+		if (parent[a] > parent[b]){
+			int swap = a;
+			a = b;
+			b = swap;
+		}
+		parent[a] += parent[b];
+		parent[b] = a;
+		count--;
+		return true;
+	}
+
+	/**
+	 * @param u: an id.
+	 * @param v: another id.
+	 * @return: true if they're in the same set.
+	 */
+	public boolean connected(int u, int v){
+		return find(u) == find(v);
+	}
+
+	/**
+	 * @param u: an id.
+	 * @return: number of ids in its set.
+	 */
+	public int size(int u){
+		return -parent[find(u)];
+	}
+
+	/**
+	 * @return: number of sets.
+	 */
+	public int count(){
+		return count;
+	}
+
+}
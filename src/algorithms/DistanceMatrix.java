@@ -0,0 +1,298 @@
+package algorithms;
+
+import graph.IndexedGraph;
+
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Shortest distances between every pair of nodes, kept as one long[] per node. Like
+ * Dijkstra's algorithm it uses the weights the user gave the edges, which must not be negative.
+ *
+ * There are two ways to fill it in, and which is cheaper depends on how dense the graph is. On
+ * a sparse graph Dijkstra's algorithm is run from every node, the sources shared out between
+ * the threads of a ForkJoinPool. On a dense graph that costs more than Floyd-Warshall, which
+ * is run tiled: the matrix is cut into TILE by TILE tiles, and each round takes one block of
+ * TILE intermediate nodes through the tile on the diagonal first, then the tiles in its row
+ * and column, then all the others. Tiles in the last two phases don't depend on each other, so
+ * they're done in parallel, and a tile's rows fit in cache while it's being worked on.
+ *
+ * The innermost loop lowers a stretch of one row by another, and is written so the JIT can
+ * turn it into vector instructions: the two rows are different arrays, so it needn't worry
+ * they overlap, and the min is done with a shift because Math.min on longs isn't vectorized.
+ */
+public class DistanceMatrix {
+
+	/** Distance between two nodes when there's no path from one to the other. */
+	public static final long UNREACHABLE = Long.MAX_VALUE;
+
+	/** Side of a tile in the tiled Floyd-Warshall. */
+	static final int TILE = 64;
+
+	/** Floyd-Warshall is used when there are at least nodes^2 / DENSE arcs. */
+	static final int DENSE = 8;
+
+	// stands in for UNREACHABLE while the matrix is being filled in: adding two of them can't
+	// overflow, and anything at least this big is unreachable
+	private static final long INFINITE = Long.MAX_VALUE / 4;
+
+	private final int nodes;
+	private final long[][] distances;
+	private final boolean tiled;
+
+	private DistanceMatrix(int nodes, long[][] distances, boolean tiled){
+		this.nodes = nodes;
+		this.distances = distances;
+		this.tiled = tiled;
+	}
+
+	/**
+	 * Find the distance between every pair of nodes, choosing the cheaper way for the graph.
+	 * @param graph: the graph.
+	 * @return: the distances.
+	 */
+	public static DistanceMatrix of(IndexedGraph graph){
+		return of(graph, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @param graph: the graph.
+	 * @param pool: threads to work on.
+	 * @return: the distances.
+	 */
+	public static DistanceMatrix of(IndexedGraph graph, ForkJoinPool pool){
+		return of(graph, pool, null);
+	}
+
+	/**
+	 * @param graph: the graph.
+	 * @param pool: threads to work on.
+	 * @param stop: set to give up part way, or null to always finish.
+	 * @return: the distances.
+	 * @throws CancellationException: if stop was set before the matrix was finished.
+	 */
+	static DistanceMatrix of(IndexedGraph graph, ForkJoinPool pool, AtomicBoolean stop){
+		long n = graph.nodeCount();
+		if ((long)graph.arcCount() * DENSE >= n * n) return floydWarshall(graph, pool, stop);
+		return dijkstra(graph, pool, stop);
+	}
+
+	/**
+	 * Fill in the matrix with the tiled Floyd-Warshall.
+	 * @param graph: the graph.
+	 * @param pool: threads to work on.
+	 * @return: the distances.
+	 */
+	public static DistanceMatrix floydWarshall(IndexedGraph graph, ForkJoinPool pool){
+		return floydWarshall(graph, pool, null);
+	}
+
+	private static DistanceMatrix floydWarshall(IndexedGraph graph, ForkJoinPool pool, AtomicBoolean stop){
+		checkWeights(graph);
+		int n = graph.nodeCount();
+
+		// pad to a whole number of tiles; padding is unreachable and so never used
+		int padded = (n + TILE - 1) / TILE * TILE;
+		long[][] d = new long[padded][padded];
+		for (int u = 0; u < padded; u++){
+			Arrays.fill(d[u], INFINITE);
+			d[u][u] = 0;
+			if (u >= n) continue;
+			for (int arc = graph.firstArc(u); arc < graph.endArc(u); arc++){
+				int v = graph.target(arc);
+				d[u][v] = Math.min(d[u][v], graph.weight(arc));
+			}
+		}
+
+		int blocks = padded / TILE;
+		for (int k = 0; k < blocks; k++){
+			checkStop(stop);
+			relax(d, k, k, k);
+			pool.invoke(new Tiles(d, k, 0, 2*blocks, false));
+			pool.invoke(new Tiles(d, k, 0, blocks*blocks, true));
+		}
+		for (long[] row : d){
+			for (int v = 0; v < row.length; v++) if (row[v] >= INFINITE) row[v] = UNREACHABLE;
+		}
+		return new DistanceMatrix(n, d, true);
+	}
+
+	/**
+	 * Fill in the matrix by running Dijkstra's algorithm from every node.
+	 * @param graph: the graph.
+	 * @param pool: threads to work on.
+	 * @return: the distances.
+	 */
+	public static DistanceMatrix dijkstra(IndexedGraph graph, ForkJoinPool pool){
+		return dijkstra(graph, pool, null);
+	}
+
+	private static DistanceMatrix dijkstra(IndexedGraph graph, ForkJoinPool pool, AtomicBoolean stop){
+		checkWeights(graph);
+		int n = graph.nodeCount();
+		long[][] d = new long[n][];
+		if (n > 0) pool.invoke(new Sources(graph, d, 0, n, stop));
+		return new DistanceMatrix(n, d, false);
+	}
+
+	/**
+	 * @param graph: the graph.
+	 * @throws IllegalArgumentException: if any of its edges has a negative weight.
+	 */
+	static void checkWeights(IndexedGraph graph){
+		for (int arc = 0; arc < graph.arcCount(); arc++){
+			if (graph.weight(arc) < 0) throw new IllegalArgumentException("Shortest paths between all pairs can't be found on a graph with negative edge weights.");
+		}
+	}
+
+	private static void checkStop(AtomicBoolean stop){
+		if (stop != null && stop.get()) throw new CancellationException("The distance matrix is no longer wanted.");
+	}
+
+	/**
+	 * Relax one tile through one block of intermediate nodes.
+	 * @param row: block of the tile's rows.
+	 * @param column: block of the tile's columns.
+	 * @param through: block of intermediate nodes.
+	 */
+	private static void relax(long[][] d, int row, int column, int through){
+		int i0 = row * TILE, j0 = column * TILE, k0 = through * TILE;
+		for (int k = k0; k < k0 + TILE; k++){
+			long[] fromK = d[k];
+			for (int i = i0; i < i0 + TILE; i++){
+				long[] from = d[i];
+				long toK = from[k];
+				if (toK >= INFINITE) continue;
+				for (int j = j0; j < j0 + TILE; j++){
+					// no overflow: every entry is at most INFINITE, so this is negative
+					// exactly when going through k is shorter
+					long shorter = toK + fromK[j] - from[j];
+					from[j] += shorter & (shorter >> 63);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Relaxes a range of the tiles in one phase of a round, splitting the range in two until
+	 * it's one tile. In the second phase tiles [0, blocks) are those in the round's row and
+	 * [blocks, 2*blocks) those in its column; in the third tile t is at (t / blocks, t % blocks).
+	 */
+	@SuppressWarnings("serial")
+	private static class Tiles extends RecursiveAction{
+		private final long[][] d;
+		private final int through;
+		private final int from;
+		private final int to;
+		private final boolean rest;
+		private Tiles(long[][] d, int through, int from, int to, boolean rest){
+			this.d = d;
+			this.through = through;
+			this.from = from;
+			this.to = to;
+			this.rest = rest;
+		}
+
+		@Override
+		protected void compute(){
+			if (to - from > 1){
+				int mid = (from + to) >>> 1;
+				invokeAll(new Tiles(d, through, from, mid, rest), new Tiles(d, through, mid, to, rest));
+				return;
+			}
+			int blocks = d.length / TILE;
+			int row, column;
+			if (rest){
+				row = from / blocks;
+				column = from % blocks;
+				if (row == through || column == through) return;
+			}
+			else{
+				row = from < blocks ? through : from - blocks;
+				column = from < blocks ? from : through;
+				if (row == through && column == through) return;
+			}
+			relax(d, row, column, through);
+		}
+	}
+
+	/**
+	 * Runs Dijkstra's algorithm from a range of sources, splitting the range in two until it's
+	 * one source.
+	 */
+	@SuppressWarnings("serial")
+	private static class Sources extends RecursiveAction{
+		private final IndexedGraph graph;
+		private final long[][] d;
+		private final int from;
+		private final int to;
+		private final AtomicBoolean stop;
+		private Sources(IndexedGraph graph, long[][] d, int from, int to, AtomicBoolean stop){
+			this.graph = graph;
+			this.d = d;
+			this.from = from;
+			this.to = to;
+			this.stop = stop;
+		}
+
+		@Override
+		protected void compute(){
+			if (to - from > 1){
+				int mid = (from + to) >>> 1;
+				invokeAll(new Sources(graph, d, from, mid, stop), new Sources(graph, d, mid, to, stop));
+				return;
+			}
+			checkStop(stop);
+			d[from] = DijkstraSearch.distances(graph, from);
+		}
+	}
+
+	/**
+	 * @param from: id of a node.
+	 * @param to: id of a node.
+	 * @return: the distance from one to the other, or UNREACHABLE.
+	 */
+	public long distance(int from, int to){
+		return distances[from][to];
+	}
+
+	/**
+	 * @param from: id of a node.
+	 * @return: the distance from it to every node, or UNREACHABLE.
+	 */
+	public long[] row(int from){
+		return Arrays.copyOf(distances[from], nodes);
+	}
+
+	/**
+	 * @return: the largest distance between two nodes with a path between them.
+	 */
+	public long diameter(){
+		long max = 0;
+		for (int u = 0; u < nodes; u++){
+			for (int v = 0; v < nodes; v++){
+				long distance = distances[u][v];
+				if (distance != UNREACHABLE && distance > max) max = distance;
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * @return: number of nodes.
+	 */
+	public int size(){
+		return nodes;
+	}
+
+	/**
+	 * @return: true if it was filled in with Floyd-Warshall, false if with Dijkstra's.
+	 */
+	public boolean tiled(){
+		return tiled;
+	}
+
+}
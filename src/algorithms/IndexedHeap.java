@@ -0,0 +1,140 @@
+package algorithms;
+
+import java.util.Arrays;
+
+/**
+ * A binary min-heap of node ids, ordered by a double key per node. Each node is in the heap
+ * at most once, and its key can be lowered in place, so searches never leave stale entries
+ * behind. Everything lives in arrays sized to the number of nodes: nothing is allocated once
+ * the heap has been made.
+ */
+class IndexedHeap {
+
+	private final int[] heap;     // node ids, heap ordered by key
+	private final int[] position; // where each node is in heap, or -1 if it isn't
+	private final double[] keys;  // key of each node in the heap
+	private int size = 0;
+
+	/**
+	 * @param capacity: number of nodes; ids must be less than this.
+	 */
+	IndexedHeap(int capacity){
+		heap = new int[capacity];
+		position = new int[capacity];
+		keys = new double[capacity];
+		Arrays.fill(position, -1);
+	}
+
+	/**
+	 * @return: true if there are no nodes in the heap.
+	 */
+	boolean isEmpty(){
+		return size == 0;
+	}
+
+	/**
+	 * @return: number of nodes in the heap.
+	 */
+	int size(){
+		return size;
+	}
+
+	/**
+	 * @param node: id of a node.
+	 * @return: true if the node is in the heap.
+	 */
+	boolean contains(int node){
+		return position[node] >= 0;
+	}
+
+	/**
+	 * @param node: id of a node in the heap.
+	 * @return: its key.
+	 */
+	double key(int node){
+		return keys[node];
+	}
+
+	/**
+	 * Put a node into the heap, or lower its key if it's there already with a higher one.
+	 * @param node: id of the node.
+	 * @param key: its key.
+	 * @return: true if the heap changed.
+	 */
+	boolean offer(int node, double key){
+		int i = position[node];
+		if (i < 0){
+			i = size++;
+			heap[i] = node;
+			position[node] = i;
+		}
+		else if (key >= keys[node]) return false;
+		keys[node] = key;
+		siftUp(i);
+		return true;
+	}
+
+	/**
+	 * @return: id of the node with the smallest key, without removing it.
+	 */
+	int peek(){
+		return heap[0];
+	}
+
+	/**
+	 * Remove the node with the smallest key.
+	 * @return: its id.
+	 */
+	int poll(){
+		int top = heap[0];
+		position[top] = -1;
+		size--;
+		if (size > 0){
+			heap[0] = heap[size];
+			position[heap[0]] = 0;
+			siftDown(0);
+		}
+		return top;
+	}
+
+	/**
+	 * Empty the heap.
+	 */
+	void clear(){
+		for (int i = 0; i < size; i++) position[heap[i]] = -1;
+		size = 0;
+	}
+
+	private void siftUp(int i){
+		int node = heap[i];
+		double key = keys[node];
+		while (i > 0){
+			int parent = (i-1) >>> 1;
+			int above = heap[parent];
+			if (keys[above] <= key) break;
+			heap[i] = above;
+			position[above] = i;
+			i = parent;
+		}
+		heap[i] = node;
+		position[node] = i;
+	}
+
+	private void siftDown(int i){
+		int node = heap[i];
+		double key = keys[node];
+		int half = size >>> 1;
+		while (i < half){
+			int child = 2*i + 1;
+			if (child+1 < size && keys[heap[child+1]] < keys[heap[child]]) child++;
+			int below = heap[child];
+			if (key <= keys[below]) break;
+			heap[i] = below;
+			position[below] = i;
+			i = child;
+		}
+		heap[i] = node;
+		position[node] = i;
+	}
+
+}
@@ -2,69 +2,56 @@ package algorithms;
 
 import graph.Edge;
 import graph.Graph;
-import graph.Node;
+import graph.IndexedGraph;
 
 import java.awt.Color;
 import java.awt.Graphics;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Map;
-import java.util.PriorityQueue;
-import java.util.Set;
 
 public class Kruskals extends Algorithm{
 
-	private List<State> states = new ArrayList<State>();
-	private Graph graph;
+	private IndexedGraph graph;
+	private KruskalsSearch search;
+
+	// displayed state: the first 'checked' edges in the search order have been considered, the
+	// first 'treeSize' edges added by the search are in the spanning tree.
+	private int checked = 0;
+	private int treeSize = 0;
+	private boolean showLast = false;
 
 	public Kruskals(Graph g){
-		graph = g;
-		solve();
-		this.stateIndex = 0;
+		this(g.freeze());
 	}
 
-	private void solve(){
-
-		/* Algorithm set up */
-		PriorityQueue<Edge> edges = new PriorityQueue<>(graph.getEdges());
-		Set<Edge> tree = new HashSet<>();
-		Set<UFNode> nodes = new HashSet<>();
-		Map<Node,UFNode> mapping = new HashMap<>();
-		for (Node node : graph.getNodes()){
-			UFNode kruskalNode = new UFNode(node);
-			nodes.add(kruskalNode);
-			mapping.put(node,kruskalNode);
-		}
+	public Kruskals(IndexedGraph g){
+		graph = g;
+		search = new KruskalsSearch(g);
 
 		/* Add the initial, 'empty' state. */
-		states.add(new State(null,tree,edges));
-
-		/* Algorithm execution */
-		while (!edges.isEmpty()){
-			Edge edge = edges.poll();
-			UFNode first = mapping.get(edge.node1);
-			UFNode second = mapping.get(edge.node2);
-			if (union(first,second)) tree.add(edge);
-			states.add(new State(edge,tree,edges));
-		}
+		record(new Step(false,false));
+	}
+
+	@Override
+	protected boolean step(){
 
 		/* Add the final, 'complete' state. */
-		states.add(new State(null,tree,new PriorityQueue<Edge>()));
+		if (!search.hasNext()){
+			record(new Step(false,false));
+			return false;
+		}
+
+		/* Consider the next edge. */
+		record(new Step(true,search.step()));
+		return true;
 
 	}
 
 	@Override
 	public void draw(Graphics g) {
 
-		// get current state and draw unprocessed nodes
-		State state = states.get(stateIndex);
-
 		// draw edges
-		for (Edge e : state.spanningTree) e.draw(g,Color.GREEN);
-		for (Edge e : state.toBeChecked) e.draw(g, Color.BLACK);
-		Edge lastTouched = state.lastProcessed;
+		for (int i = 0; i < treeSize; i++) graph.edge(search.tree(i)).draw(g,Color.GREEN);
+		for (int i = checked; i < graph.edgeCount(); i++) graph.edge(search.order(i)).draw(g, Color.BLACK);
+		Edge lastTouched = showLast ? graph.edge(search.order(checked-1)) : null;
 		if (lastTouched != null){
 			lastTouched.draw(g, Color.CYAN);
 			lastTouched.node1.draw(g, Color.CYAN);
@@ -72,8 +59,9 @@ public class Kruskals extends Algorithm{
 		}
 		
 		// draw nodes
-		graph.drawNodes(g,Color.WHITE);
-		for (Edge e : state.spanningTree){
+		for (int u = 0; u < graph.nodeCount(); u++) graph.node(u).draw(g,Color.WHITE);
+		for (int i = 0; i < treeSize; i++){
+			Edge e = graph.edge(search.tree(i));
 			e.node1.draw(g, Color.GREEN);
 			e.node2.draw(g, Color.GREEN);
 		}
@@ -81,75 +69,63 @@ public class Kruskals extends Algorithm{
 	}
 
 	/**
-	 * Wrapper class that represents the 'state' of the algorithm at each step. We're interested in
-	 * what edges belong to the spanningTree after each iteration, and what the last edge was that
-	 * we considered.
+	 * What changed in one iteration. Either the next edge was considered (and maybe added to
+	 * the spanning tree), or nothing was and the last edge considered should stop being shown.
 	 * @author craigthelinguist
 	 */
-	private class State implements Iteration{
-		private Edge lastProcessed;
-		private Set<Edge> spanningTree;
-		private Set<Edge> toBeChecked;
-		public State(Edge e, Set<Edge> s, PriorityQueue<Edge> edges){
-			if (e != null) lastProcessed = e.clone();
-			spanningTree = new HashSet<Edge>();
-			for (Edge edge : s){
-				spanningTree.add(edge.clone());
-			}
-			toBeChecked = new HashSet<Edge>();
-			for (Edge edge : edges){
-				toBeChecked.add(edge);
-			}
+	private class Step implements Iteration{
+		private final boolean processed;
+		private final boolean added;
+		private Step(boolean processed, boolean added){
+			this.processed = processed;
+			this.added = added;
 		}
 	}
 
-	@Override
-	protected int numberOfStates() {
-		return states.size();
-	}
-
 	/**
-	 * UFNode - or 'UnionFindNode', is what we use to perform Kruskal's. The set of nodes in the
-	 * tree is represented as the union of disjoint sets. Each node has a head. If you follow the
-	 * trail of heads until you get to null, then the node at the top represents the set.
+	 * A full copy of the displayed state. Edges are considered in a fixed order and the tree
+	 * only grows, so the state is just how far along each of them we are.
 	 * @author craigthelinguist
 	 */
-	private class UFNode extends Node{
-		private UFNode head = null;
-		private UFNode(Node node){
-			super(node.X,node.Y);
+	private class Checkpoint implements Iteration{
+		private final int checked;
+		private final int treeSize;
+		private final boolean showLast;
+		private Checkpoint(int checked, int treeSize, boolean showLast){
+			this.checked = checked;
+			this.treeSize = treeSize;
+			this.showLast = showLast;
 		}
 	}
 
-	/**
-	 * Find and return the node that represents the set containing the node that you provide.
-	 * @param node: node whose head you'll find.
-	 * @return: the head representing the set containing this node.
-	 */
-	private UFNode find(UFNode node){
-		if (node.head == null) return node;
-		UFNode parent = find(node.head);
-		if (parent != node) node.head = parent;
-		return parent;
+	@Override
+	protected void apply(Iteration delta) {
+		Step step = (Step)delta;
+		showLast = step.processed;
+		if (step.processed) checked++;
+		if (step.added) treeSize++;
 	}
 
-	/**
-	 * Take the union of these two sets by setting their
-	 * heads to be the same. Returns true if the sets were
-	 * unioned, false if they weren't (i.e.: they already
-	 * belong to the same set).
-	 * @param node1: node in the first set.
-	 * @param node2: node in the second set.
-	 * @return: true/false if the two sets were unioned and it resulted in change.
-	 */
-	private boolean union(UFNode node1, UFNode node2){
-		UFNode head1 = find(node1);
-		UFNode head2 = find(node2);
-		if (head1 == head2) return false;
-		head1.head = head2;
-		return true;
+	@Override
+	protected Iteration checkpoint() {
+		return new Checkpoint(checked, treeSize, showLast);
 	}
 
+	@Override
+	protected void restore(Iteration iteration) {
+		Checkpoint checkpoint = (Checkpoint)iteration;
+		checked = checkpoint.checked;
+		treeSize = checkpoint.treeSize;
+		showLast = checkpoint.showLast;
+	}
 
+	/**
+	 * Find a minimum spanning tree without recording any iterations.
+	 * @param graph: graph to span.
+	 * @return: the edges of the tree and their total weight.
+	 */
+	public static TreeResult solve(IndexedGraph graph){
+		return new KruskalsSearch(graph).solve();
+	}
 
 }
@@ -0,0 +1,100 @@
+package algorithms;
+
+import graph.IndexedGraph;
+
+import java.util.Arrays;
+
+/**
+ * Kruskal's algorithm itself, without anything to do with drawing. Kruskals drives it one
+ * edge at a time; solve() runs it straight through with no history, for answering queries.
+ * Both go through step(), so the two can't give different answers.
+ *
+ * Edges are considered in order of weight. An edge joins the tree if its two nodes are in
+ * different sets of a DisjointSets over node ids.
+ */
+public class KruskalsSearch {
+
+	private final IndexedGraph graph;
+
+	// edge ids in the order they are considered; the first treeSize edges of tree are in the tree
+	private final int[] order;
+	private final int[] tree;
+	private int treeSize = 0;
+	private long weight = 0;
+	private int next = 0;
+
+	// which nodes the tree so far has joined together
+	private final DisjointSets sets;
+
+	/**
+	 * @param graph: graph to span.
+	 */
+	public KruskalsSearch(IndexedGraph graph){
+		this.graph = graph;
+
+		// sort by weight, ties broken by edge id
+		order = RadixSort.edgesByWeight(graph);
+
+		tree = new int[Math.max(0, graph.nodeCount()-1)];
+		sets = new DisjointSets(graph.nodeCount());
+	}
+
+	/**
+	 * @return: true if there are edges left to consider.
+	 */
+	public boolean hasNext(){
+		return next < order.length;
+	}
+
+	/**
+	 * Consider the next edge, adding it to the tree if it joins two different sets.
+	 * @return: true if the edge was added to the tree.
+	 */
+	public boolean step(){
+		int e = order[next++];
+		if (!sets.union(graph.edgeSource(e), graph.edgeTarget(e))) return false;
+		tree[treeSize++] = e;
+		weight += graph.edgeWeight(e);
+		return true;
+	}
+
+	/**
+	 * Run the algorithm to the end.
+	 * @return: the minimum spanning tree (or forest) of the graph.
+	 */
+	public TreeResult solve(){
+		while (hasNext()) step();
+		return result();
+	}
+
+	/**
+	 * @return: the tree built so far; only complete once hasNext() is false.
+	 */
+	public TreeResult result(){
+		return new TreeResult(Arrays.copyOf(tree, treeSize), weight);
+	}
+
+	/**
+	 * @param i: position in the order edges are considered.
+	 * @return: id of the i-th edge considered.
+	 */
+	public int order(int i){
+		return order[i];
+	}
+
+	/**
+	 * @param i: position in the tree.
+	 * @return: id of the i-th edge added to the tree.
+	 */
+	public int tree(int i){
+		return tree[i];
+	}
+
+	/**
+	 * @return: number of edges added to the tree so far.
+	 */
+	public int treeSize(){
+		return treeSize;
+	}
+
+}
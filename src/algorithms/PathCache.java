@@ -0,0 +1,255 @@
+package algorithms;
+
+import graph.IndexedGraph;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Remembers the answers to recent shortest path queries on a graph, so asking the same
+ * question again doesn't mean searching again. The least recently used answer is dropped
+ * when the cache is full.
+ *
+ * Every part of a shortest path is itself a shortest path, so a query can also be answered
+ * from any cached path that passes through its start and then its goal.
+ *
+ * Answers belong to one snapshot of a graph. Asking about a different snapshot (such as the
+ * one Graph.freeze() gives after the graph has been changed) empties the cache first.
+ */
+public class PathCache {
+
+	private final int capacity;
+
+	// the snapshot the cached answers belong to
+	private IndexedGraph graph = null;
+
+	// answers keyed by (start << 32 | goal), least recently used first
+	private final LinkedHashMap<Long,Entry> entries;
+
+	// for each node, the cached paths that go through it
+	private final Map<Integer,List<Entry>> through = new HashMap<>();
+
+	private int hits = 0;
+	private int subPathHits = 0;
+	private int misses = 0;
+
+	/**
+	 * A cached answer, with the cost of the path up to each node on it.
+	 */
+	private static class Entry{
+		private final PathResult result;
+		private final int[] path;
+		private final double[] costs;
+		private Entry(PathResult result, int[] path, double[] costs){
+			this.result = result;
+			this.path = path;
+			this.costs = costs;
+		}
+	}
+
+	/**
+	 * @param capacity: most answers to keep at once.
+	 */
+	public PathCache(int capacity){
+		if (capacity <= 0) throw new IllegalArgumentException("Cache capacity must be positive.");
+		this.capacity = capacity;
+		this.entries = new LinkedHashMap<Long,Entry>(16, 0.75f, true){
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long,Entry> eldest){
+				if (size() <= PathCache.this.capacity) return false;
+				unindex(eldest.getValue());
+				return true;
+			}
+		};
+	}
+
+	/**
+	 * Find the shortest path between two nodes, using a cached answer if there is one and
+	 * searching with A* (and caching the answer) if there isn't.
+	 * @param graph: graph to search.
+	 * @param start: id of the node to start from.
+	 * @param goal: id of the node to search for.
+	 * @return: the path and its cost.
+	 */
+	public PathResult solve(IndexedGraph graph, int start, int goal){
+		PathResult result = get(graph, start, goal);
+		if (result == null){
+			result = new AStarSearch(graph, start, goal).solve();
+			put(graph, start, goal, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Look up the answer to a query.
+	 * @param graph: graph being searched.
+	 * @param start: id of the node to start from.
+	 * @param goal: id of the node to search for.
+	 * @return: the cached answer, or null if there isn't one.
+	 */
+	public synchronized PathResult get(IndexedGraph graph, int start, int goal){
+		use(graph);
+		Entry entry = entries.get(key(start, goal));
+		if (entry != null){
+			hits++;
+			return entry.result;
+		}
+		PathResult result = subPath(start, goal);
+		if (result != null){
+			subPathHits++;
+			return result;
+		}
+		misses++;
+		return null;
+	}
+
+	/**
+	 * Remember the answer to a query.
+	 * @param graph: graph that was searched.
+	 * @param start: id of the node the search started from.
+	 * @param goal: id of the node searched for.
+	 * @param result: what the search found.
+	 */
+	public synchronized void put(IndexedGraph graph, int start, int goal, PathResult result){
+		use(graph);
+		Entry old = entries.remove(key(start, goal));
+		if (old != null) unindex(old);
+		int[] path = result.path();
+		double[] costs = null;
+		if (path != null){
+			costs = new double[path.length];
+			for (int i = 1; i < path.length; i++){
+				costs[i] = costs[i-1] + weight(path[i-1], path[i]);
+			}
+		}
+		Entry entry = new Entry(result, path, costs);
+		entries.put(key(start, goal), entry);
+		if (path != null){
+			for (int u : path){
+				List<Entry> list = through.get(u);
+				if (list == null){
+					list = new ArrayList<>(2);
+					through.put(u, list);
+				}
+				list.add(entry);
+			}
+		}
+	}
+
+	/**
+	 * Forget every cached answer.
+	 */
+	public synchronized void clear(){
+		entries.clear();
+		through.clear();
+	}
+
+	/**
+	 * @return: number of queries answered by a cached answer to the same query.
+	 */
+	public synchronized int hits(){
+		return hits;
+	}
+
+	/**
+	 * @return: number of queries answered by part of a cached path.
+	 */
+	public synchronized int subPathHits(){
+		return subPathHits;
+	}
+
+	/**
+	 * @return: number of queries that couldn't be answered from the cache.
+	 */
+	public synchronized int misses(){
+		return misses;
+	}
+
+	/**
+	 * @return: number of answers in the cache.
+	 */
+	public synchronized int size(){
+		return entries.size();
+	}
+
+	/**
+	 * Make the cache hold answers for the given graph, emptying it if it held answers for
+	 * another one.
+	 */
+	private void use(IndexedGraph graph){
+		if (this.graph != graph){
+			clear();
+			this.graph = graph;
+		}
+	}
+
+	/**
+	 * Answer a query with part of a cached path that goes through start and then goal.
+	 * @return: the answer, or null if no cached path does.
+	 */
+	private PathResult subPath(int start, int goal){
+		List<Entry> candidates = through.get(start);
+		if (candidates == null) return null;
+		for (Entry entry : candidates){
+			int from = -1;
+			for (int i = 0; i < entry.path.length; i++){
+				if (entry.path[i] == start) from = i;
+				else if (entry.path[i] == goal && from >= 0){
+					int[] path = new int[i-from+1];
+					System.arraycopy(entry.path, from, path, 0, path.length);
+					PathResult result = new PathResult(path, entry.costs[i] - entry.costs[from], 0);
+					touch(key(entry.path[0], entry.path[entry.path.length-1]));
+					return result;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Mark an answer as just used, so it's the last to be dropped. The entries are kept in
+	 * access order, so looking one up is what moves it to the back; the value isn't needed.
+	 * @param key: key of the answer.
+	 */
+	private void touch(long key){
+		entries.get(key);
+	}
+
+	/**
+	 * Stop finding sub-paths in an answer that's being dropped.
+	 */
+	private void unindex(Entry entry){
+		if (entry.path == null) return;
+		for (int u : entry.path){
+			List<Entry> list = through.get(u);
+			if (list == null) continue;
+			for (Iterator<Entry> it = list.iterator(); it.hasNext();){
+				if (it.next() == entry){
+					it.remove();
+					break;
+				}
+			}
+			if (list.isEmpty()) through.remove(u);
+		}
+	}
+
+	/**
+	 * @return: euclidean weight of the arc from u to v, as used by AStarSearch.
+	 */
+	private double weight(int u, int v){
+		double[] distances = AStarSearch.projection(graph);
+		for (int arc = graph.firstArc(u); arc < graph.endArc(u); arc++){
+			if (graph.target(arc) == v) return distances[arc];
+		}
+		throw new IllegalArgumentException("Path has no arc from "+u+" to "+v+".");
+	}
+
+	private static long key(int start, int goal){
+		return ((long)start << 32) | (goal & 0xFFFFFFFFL);
+	}
+
+}
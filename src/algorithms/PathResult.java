@@ -0,0 +1,69 @@
+package algorithms;
+
+import graph.IndexedGraph;
+import graph.Node;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The answer to a shortest path query: the path found and what it cost. Nodes are given by
+ * their ids in the graph that was searched.
+ */
+public class PathResult {
+
+	private final int[] path;
+	private final double cost;
+	private final int expanded;
+
+	/**
+	 * @param path: ids of the nodes on the path from start to goal, or null if there's no path.
+	 * @param cost: total weight of the path.
+	 * @param expanded: number of nodes the search visited.
+	 */
+	public PathResult(int[] path, double cost, int expanded){
+		this.path = path;
+		this.cost = cost;
+		this.expanded = expanded;
+	}
+
+	/**
+	 * @return: true if a path was found.
+	 */
+	public boolean found(){
+		return path != null;
+	}
+
+	/**
+	 * @return: ids of the nodes on the path from start to goal, or null if there's no path.
+	 */
+	public int[] path(){
+		return path == null ? null : path.clone();
+	}
+
+	/**
+	 * @return: total weight of the path.
+	 */
+	public double cost(){
+		return cost;
+	}
+
+	/**
+	 * @return: number of nodes the search visited to find the path.
+	 */
+	public int expanded(){
+		return expanded;
+	}
+
+	/**
+	 * Look up the nodes on the path.
+	 * @param graph: the graph that was searched.
+	 * @return: the nodes on the path from start to goal, or an empty list if there's no path.
+	 */
+	public List<Node> nodes(IndexedGraph graph){
+		List<Node> nodes = new ArrayList<>();
+		if (path != null) for (int u : path) nodes.add(graph.node(u));
+		return nodes;
+	}
+
+}
@@ -0,0 +1,73 @@
+package algorithms;
+
+import graph.IndexedGraph;
+
+import java.util.Arrays;
+
+/**
+ * Sorts edges by weight in linear time. Weights are ints, so rather than comparing edges
+ * with each other, edge ids are distributed by their weights one byte at a time, least
+ * significant byte first (an LSD radix sort). Each pass is stable, so edges of equal weight
+ * stay in order of id, the same order as sorting by (weight, id).
+ *
+ * Passes over a byte that every weight shares are skipped, so a graph whose weights all fit
+ * in one byte is sorted in a single pass.
+ */
+class RadixSort {
+
+	private static final int BITS = 8;
+	private static final int BUCKETS = 1 << BITS;
+	private static final int MASK = BUCKETS - 1;
+
+	private RadixSort(){}
+
+	/**
+	 * Return the edges of a graph in order of weight, ties broken by id.
+	 * @param graph: the graph.
+	 * @return: edge ids, lightest first.
+	 */
+	static int[] edgesByWeight(IndexedGraph graph){
+		int m = graph.edgeCount();
+
+		// flip the sign bit so negative weights come before positive ones when read unsigned
+		int[] keys = new int[m];
+		for (int e = 0; e < m; e++) keys[e] = graph.edgeWeight(e) ^ Integer.MIN_VALUE;
+
+		// edge ids and their keys are moved together, so each pass reads both in sequence
+		int[] order = new int[m];
+		for (int e = 0; e < m; e++) order[e] = e;
+		int[] buffer = new int[m];
+		int[] keyBuffer = new int[m];
+		int[] counts = new int[BUCKETS];
+
+		for (int shift = 0; shift < 32; shift += BITS){
+
+			// count how many edges go in each bucket
+			Arrays.fill(counts, 0);
+			for (int i = 0; i < m; i++) counts[(keys[i] >>> shift) & MASK]++;
+			if (m == 0 || counts[(keys[0] >>> shift) & MASK] == m) continue;
+
+			// turn counts into where each bucket starts, then deal the edges out
+			int total = 0;
+			for (int b = 0; b < BUCKETS; b++){
+				int count = counts[b];
+				counts[b] = total;
+				total += count;
+			}
+			for (int i = 0; i < m; i++){
+				int key = keys[i];
+				int to = counts[(key >>> shift) & MASK]++;
+				buffer[to] = order[i];
+				keyBuffer[to] = key;
+			}
+			int[] swap = order;
+			order = buffer;
+			buffer = swap;
+			swap = keys;
+			keys = keyBuffer;
+			keyBuffer = swap;
+		}
+		return order;
+	}
+
+}
@@ -0,0 +1,75 @@
+package algorithms;
+
+import graph.IndexedGraph;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * The arcs of a graph grouped by the node they point to rather than the node they leave, for
+ * searches that work backward from a goal. Like the graph's own arcs, the arcs into node v are
+ * those from first(v) up to (but not including) end(v); arc(i) and source(i) give the arc's id
+ * in the graph and the node it comes from.
+ */
+class ReverseArcs {
+
+	// reverse arcs of graphs searched recently, keyed on the (immutable) snapshot
+	private static final Map<IndexedGraph,ReverseArcs> cache = new WeakHashMap<>();
+
+	private final int[] offsets;
+	private final int[] arcs;
+	private final int[] sources;
+
+	private ReverseArcs(IndexedGraph graph){
+		int n = graph.nodeCount();
+		int m = graph.arcCount();
+		offsets = new int[n+1];
+		arcs = new int[m];
+		sources = new int[m];
+		for (int arc = 0; arc < m; arc++) offsets[graph.target(arc)+1]++;
+		for (int v = 0; v < n; v++) offsets[v+1] += offsets[v];
+		int[] fill = new int[n];
+		for (int u = 0; u < n; u++){
+			for (int arc = graph.firstArc(u); arc < graph.endArc(u); arc++){
+				int v = graph.target(arc);
+				int i = offsets[v] + fill[v]++;
+				arcs[i] = arc;
+				sources[i] = u;
+			}
+		}
+	}
+
+	/**
+	 * Return the reverse arcs of a graph, working them out only if they haven't been already.
+	 * The graph must not change afterwards; snapshots from Graph.freeze() don't.
+	 * @param graph: the graph.
+	 * @return: its arcs grouped by target.
+	 */
+	static ReverseArcs of(IndexedGraph graph){
+		synchronized (cache){
+			ReverseArcs reverse = cache.get(graph);
+			if (reverse == null){
+				reverse = new ReverseArcs(graph);
+				cache.put(graph, reverse);
+			}
+			return reverse;
+		}
+	}
+
+	int first(int node){
+		return offsets[node];
+	}
+
+	int end(int node){
+		return offsets[node+1];
+	}
+
+	int arc(int i){
+		return arcs[i];
+	}
+
+	int source(int i){
+		return sources[i];
+	}
+
+}
@@ -0,0 +1,238 @@
+package algorithms;
+
+import graph.Edge;
+import graph.IndexedGraph;
+import graph.Node;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.util.Arrays;
+
+/**
+ * What the shortest path searches have in common on screen: nodes are visited, or waiting on
+ * the fringe to be, and each step takes one node off the fringe and pushes the neighbours it
+ * reaches. A search can run from both ends at once, so every node has a forward and a backward
+ * flag of each kind; a search from one end only uses the forward ones.
+ *
+ * Subclasses run their search in step(), calling visit() for each node taken off the fringe
+ * and finish() once it's over, and draw the flags however suits them.
+ */
+public abstract class SearchView extends Algorithm{
+
+	protected static final int[] NONE = new int[0];
+
+	// what the displayed state knows about a node, as bits in a byte
+	private static final byte VISITED_FORWARD = 1;
+	private static final byte VISITED_BACKWARD = 2;
+	private static final byte FRINGE_FORWARD = 4;
+	private static final byte FRINGE_BACKWARD = 8;
+
+	protected final IndexedGraph graph;
+
+	// edges are labelled with their euclidean length if set, otherwise with their weight
+	private final boolean euclidean;
+
+	// displayed state: flags for each node, the last node visited and by which search, and
+	// whether the search is over
+	private byte[] flags;
+	protected int lastVisited = -1;
+	protected boolean lastForward = true;
+	protected boolean done;
+
+	protected Color COLOR_PATH = new Color(152,251,152);
+	protected Color COLOR_VISITED = new Color(46,139,87);
+	protected Color COLOR_FRINGE = new Color(143,188,143);
+	protected Color COLOR_GOAL = new Color(95,158,160);
+	protected Color COLOR_UNVISITED = Color.white;
+
+	/**
+	 * @param graph: graph being searched.
+	 * @param euclidean: true to label edges with their euclidean length, false with their weight.
+	 */
+	protected SearchView(IndexedGraph graph, boolean euclidean){
+		this.graph = graph;
+		this.euclidean = euclidean;
+		this.flags = new byte[graph.nodeCount()];
+	}
+
+	/**
+	 * Put a node on a fringe before the search starts.
+	 * @param node: id of the node.
+	 * @param forward: true for the forward fringe, false for the backward one.
+	 */
+	protected final void reach(int node, boolean forward){
+		flags[node] |= forward ? FRINGE_FORWARD : FRINGE_BACKWARD;
+	}
+
+	/**
+	 * Record an iteration in which a node was visited and the nodes it reached were pushed.
+	 * @param polled: id of the node visited, or -1 if none was.
+	 * @param forward: true if by the forward search, false if by the backward one.
+	 * @param tracer: what the search reported pushing.
+	 */
+	protected final void visit(int polled, boolean forward, Tracer tracer){
+		record(new Step(polled, forward, tracer.pushed(), false));
+	}
+
+	/**
+	 * Record the final iteration, which only shows the result.
+	 * @param last: id of the node the path shown leads to, or -1 for none.
+	 */
+	protected final void finish(int last){
+		record(new Step(last, true, NONE, true));
+	}
+
+	/**
+	 * @param u: id of a node.
+	 * @param forward: true to ask about the forward search, false the backward one.
+	 * @return: true if that search has visited the node.
+	 */
+	protected final boolean visited(int u, boolean forward){
+		return (flags[u] & (forward ? VISITED_FORWARD : VISITED_BACKWARD)) != 0;
+	}
+
+	/**
+	 * @param u: id of a node.
+	 * @param forward: true to ask about the forward search, false the backward one.
+	 * @return: true if the node is on that search's fringe.
+	 */
+	protected final boolean onFringe(int u, boolean forward){
+		return (flags[u] & (forward ? FRINGE_FORWARD : FRINGE_BACKWARD)) != 0;
+	}
+
+	/**
+	 * Collects what a search did in one iteration. It watches a search from either end, so
+	 * it can be handed to any of the searches.
+	 */
+	protected static class Tracer implements AStarSearch.Trace, DijkstraSearch.Trace, BidirectionalAStarSearch.Trace{
+		private int[] pushed = NONE;
+		private int count = 0;
+
+		@Override
+		public void polled(int node) {}
+
+		@Override
+		public void polled(int node, boolean forward) {}
+
+		@Override
+		public void pushed(int node) {
+			if (count == pushed.length) pushed = Arrays.copyOf(pushed, Math.max(4, count*2));
+			pushed[count++] = node;
+		}
+
+		@Override
+		public void pushed(int node, boolean forward) {
+			pushed(node);
+		}
+
+		private int[] pushed(){
+			return Arrays.copyOf(pushed, count);
+		}
+	}
+
+	/**
+	 * Each step takes one node off the forward or backward fringe, visits it, and pushes its
+	 * new neighbours onto the same fringe; the final step only shows the result.
+	 */
+	private class Step implements Iteration{
+		private int polled;
+		private boolean forward;
+		private int[] pushed;
+		private boolean finished;
+		private Step(int _polled, boolean _forward, int[] _pushed, boolean _finished){
+			this.polled = _polled;
+			this.forward = _forward;
+			this.pushed = _pushed;
+			this.finished = _finished;
+		}
+	}
+
+	/**
+	 * A full copy of the displayed state.
+	 */
+	private class Checkpoint implements Iteration{
+		private byte[] flags;
+		private int lastVisited;
+		private boolean lastForward;
+		private boolean done;
+		private Checkpoint(byte[] _flags, int _lastVisited, boolean _lastForward, boolean _done){
+			this.flags = _flags.clone();
+			this.lastVisited = _lastVisited;
+			this.lastForward = _lastForward;
+			this.done = _done;
+		}
+	}
+
+	@Override
+	protected void apply(Iteration delta) {
+		Step step = (Step)delta;
+		lastVisited = step.polled;
+		lastForward = step.forward;
+		if (step.finished){
+			done = true;
+			return;
+		}
+		byte visited = step.forward ? VISITED_FORWARD : VISITED_BACKWARD;
+		byte fringe = step.forward ? FRINGE_FORWARD : FRINGE_BACKWARD;
+		if (step.polled >= 0){
+			flags[step.polled] &= ~fringe;
+			flags[step.polled] |= visited;
+		}
+		for (int node : step.pushed) flags[node] |= fringe;
+	}
+
+	@Override
+	protected Iteration checkpoint() {
+		return new Checkpoint(flags, lastVisited, lastForward, done);
+	}
+
+	@Override
+	protected void restore(Iteration iteration) {
+		Checkpoint checkpoint = (Checkpoint)iteration;
+		System.arraycopy(checkpoint.flags, 0, flags, 0, flags.length);
+		lastVisited = checkpoint.lastVisited;
+		lastForward = checkpoint.lastForward;
+		done = checkpoint.done;
+	}
+
+	@Override
+	protected int checkpointInterval() {
+		// checkpoints cost O(nodes), so space them out on big graphs to keep history linear
+		return Math.max(super.checkpointInterval(), graph.nodeCount() / 8);
+	}
+
+	/**
+	 * Draw a path, node by node and along the edges between them.
+	 * @param g: object on which to draw.
+	 * @param path: ids of the nodes on the path, in order.
+	 * @param col: colour to draw in.
+	 */
+	protected void drawPath(Graphics g, int[] path, Color col){
+		for (int i = 0; i < path.length; i++){
+			if (i > 0){
+				int arc = graph.arcBetween(path[i-1], path[i]);
+				if (arc >= 0) drawEdge(g, graph.edge(graph.arcEdge(arc)), col);
+			}
+			graph.node(path[i]).draw(g, col);
+		}
+	}
+
+	/**
+	 * Draw an edge, labelled with its euclidean length or its weight.
+	 * @param g: object on which to draw.
+	 * @param edge: the edge.
+	 * @param col: colour to draw in.
+	 */
+	protected void drawEdge(Graphics g, Edge edge, Color col){
+		if (!euclidean){
+			edge.draw(g, col);
+			return;
+		}
+		Node n1 = edge.node1;
+		Node n2 = edge.node2;
+		g.setColor(col);
+		g.drawLine(n1.XMID, n1.YMID, n2.XMID, n2.YMID);
+		g.drawString(""+AStarSearch.distanceBetween(n1.XMID,n1.YMID,n2.XMID,n2.YMID), (n1.XMID + n2.XMID)/2, (n1.YMID + n2.YMID)/2);
+	}
+
+}
@@ -0,0 +1,67 @@
+package algorithms;
+
+/**
+ * An algorithm that is shown a whole stage at a time, where a stage is something like a
+ * level of a search or a bucket of settled nodes. What a stage shows never changes once it's
+ * been worked out, so the displayed state is just how many stages are shown and whether
+ * the algorithm is over, and subclasses look everything else up from their search.
+ */
+public abstract class StagedAlgorithm extends Algorithm{
+
+	// displayed state: the number of stages shown, and whether the algorithm is over
+	protected int shown = 0;
+	protected boolean done = false;
+
+	/**
+	 * Record an iteration.
+	 * @param next: true if it shows one more stage.
+	 * @param finished: true if it is the last iteration.
+	 */
+	protected final void advance(boolean next, boolean finished){
+		record(new Step(next, finished));
+	}
+
+	/**
+	 * What changed in one iteration: another stage was shown, or the algorithm ended, or both.
+	 */
+	private class Step implements Iteration{
+		private final boolean next;
+		private final boolean finished;
+		private Step(boolean next, boolean finished){
+			this.next = next;
+			this.finished = finished;
+		}
+	}
+
+	/**
+	 * A full copy of the displayed state.
+	 */
+	private class Checkpoint implements Iteration{
+		private final int shown;
+		private final boolean done;
+		private Checkpoint(int shown, boolean done){
+			this.shown = shown;
+			this.done = done;
+		}
+	}
+
+	@Override
+	protected void apply(Iteration delta) {
+		Step step = (Step)delta;
+		if (step.next) shown++;
+		if (step.finished) done = true;
+	}
+
+	@Override
+	protected Iteration checkpoint() {
+		return new Checkpoint(shown, done);
+	}
+
+	@Override
+	protected void restore(Iteration iteration) {
+		Checkpoint checkpoint = (Checkpoint)iteration;
+		shown = checkpoint.shown;
+		done = checkpoint.done;
+	}
+
+}
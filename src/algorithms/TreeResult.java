@@ -0,0 +1,59 @@
+package algorithms;
+
+import graph.Edge;
+import graph.IndexedGraph;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The answer to a minimum spanning tree query: the edges in the tree (a forest, if the graph
+ * isn't connected) and their total weight. Edges are given by their ids in the graph.
+ */
+public class TreeResult {
+
+	private final int[] edges;
+	private final long weight;
+
+	/**
+	 * @param edges: ids of the edges in the tree.
+	 * @param weight: total weight of those edges.
+	 */
+	public TreeResult(int[] edges, long weight){
+		this.edges = edges;
+		this.weight = weight;
+	}
+
+	/**
+	 * @return: ids of the edges in the tree.
+	 */
+	public int[] edges(){
+		return edges.clone();
+	}
+
+	/**
+	 * @return: number of edges in the tree.
+	 */
+	public int size(){
+		return edges.length;
+	}
+
+	/**
+	 * @return: total weight of the tree.
+	 */
+	public long weight(){
+		return weight;
+	}
+
+	/**
+	 * Look up the edges in the tree.
+	 * @param graph: the graph the tree spans.
+	 * @return: the edges in the tree.
+	 */
+	public List<Edge> edges(IndexedGraph graph){
+		List<Edge> list = new ArrayList<>(edges.length);
+		for (int e : edges) list.add(graph.edge(e));
+		return list;
+	}
+
+}
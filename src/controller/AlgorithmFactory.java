@@ -5,19 +5,46 @@ import java.util.List;
 import graph.Graph;
 import graph.Node;
 import algorithms.AStar;
+import algorithms.AllPairs;
 import algorithms.Algorithm;
+import algorithms.BFS;
+import algorithms.BidirectionalAStar;
+import algorithms.Boruvka;
+import algorithms.ContractedAStar;
+import algorithms.DeltaStepping;
+import algorithms.Dijkstra;
 import algorithms.Kruskals;
+import algorithms.PathCache;
 
 public class AlgorithmFactory {
 	
+	private static final int PATH_CACHE_SIZE = 64;
+	
+	// answers to recent A* queries; emptied whenever the graph has changed since
+	private PathCache paths = new PathCache(PATH_CACHE_SIZE);
+	
 	protected Algorithm setupAlgorithm(AlgorithmMode mode, Graph graph, List<Node> selection)
 	throws SetupException{
 		if (mode == null) return null;
 		switch (mode){
 			case ASTAR:
 				return setupAStar(graph, selection);
+			case CONTRACTED_ASTAR:
+				return setupContractedAStar(graph, selection);
+			case BIDIRECTIONAL_ASTAR:
+				return setupBidirectionalAStar(graph, selection);
+			case DIJKSTRA:
+				return setupDijkstra(graph, selection);
+			case DELTA_STEPPING:
+				return setupDeltaStepping(graph, selection);
+			case BFS:
+				return setupBFS(graph, selection);
+			case ALL_PAIRS:
+				return setupAllPairs(graph, selection);
 			case KRUSKALS:
 				return setupKruskals(graph, selection);
+			case BORUVKA:
+				return setupBoruvka(graph, selection);
 			default:
 				return null;
 		}
@@ -30,7 +57,77 @@ public class AlgorithmFactory {
 		}
 		Node start = selection.get(0);
 		Node goal = selection.get(1);
-		return new AStar(graph,start,goal);
+		return new AStar(graph,start,goal,paths);
+	}
+	
+	private Algorithm setupContractedAStar(Graph graph, List<Node> selection)
+	throws SetupException{
+		if (selection.size() != 2){
+			throw new SetupException("You must select a start node and an end node for contracted A*. Select nodes by left-clicking them.");
+		}
+		Node start = selection.get(0);
+		Node goal = selection.get(1);
+		return new ContractedAStar(graph,start,goal);
+	}
+	
+	private Algorithm setupBidirectionalAStar(Graph graph, List<Node> selection)
+	throws SetupException{
+		if (selection.size() != 2){
+			throw new SetupException("You must select a start node and an end node for bidirectional A*. Select nodes by left-clicking them.");
+		}
+		Node start = selection.get(0);
+		Node goal = selection.get(1);
+		return new BidirectionalAStar(graph,start,goal);
+	}
+	
+	private Algorithm setupDijkstra(Graph graph, List<Node> selection)
+	throws SetupException{
+		if (selection.size() < 1 || selection.size() > 2){
+			throw new SetupException("You must select a source node for Dijkstra's, and can select a target node. Select nodes by left-clicking them.");
+		}
+		Node source = selection.get(0);
+		Node target = selection.size() == 2 ? selection.get(1) : null;
+		try{
+			return new Dijkstra(graph,source,target);
+		}
+		catch(IllegalArgumentException e){
+			throw new SetupException(e.getMessage());
+		}
+	}
+	
+	private Algorithm setupDeltaStepping(Graph graph, List<Node> selection)
+	throws SetupException{
+		if (selection.size() != 1){
+			throw new SetupException("You must select a source node for delta-stepping. Select nodes by left-clicking them.");
+		}
+		try{
+			return new DeltaStepping(graph,selection.get(0));
+		}
+		catch(IllegalArgumentException e){
+			throw new SetupException(e.getMessage());
+		}
+	}
+	
+	private Algorithm setupBFS(Graph graph, List<Node> selection)
+	throws SetupException{
+		if (selection.size() != 1){
+			throw new SetupException("You must select a source node for BFS. Select nodes by left-clicking them.");
+		}
+		return new BFS(graph,selection.get(0));
+	}
+	
+	private Algorithm setupAllPairs(Graph graph, List<Node> selection)
+	throws SetupException{
+		if (selection.size() > 1){
+			throw new SetupException("You can select one node for all pairs shortest paths to show its distances, or none to see every node's as a heatmap.");
+		}
+		Node source = selection.isEmpty() ? null : selection.get(0);
+		try{
+			return new AllPairs(graph,source);
+		}
+		catch(IllegalArgumentException e){
+			throw new SetupException(e.getMessage());
+		}
 	}
 	
 	private Algorithm setupKruskals(Graph graph, List<Node> selection)
@@ -38,4 +135,9 @@ public class AlgorithmFactory {
 		return new Kruskals(graph);
 	}
 	
+	private Algorithm setupBoruvka(Graph graph, List<Node> selection)
+	throws SetupException{
+		return new Boruvka(graph);
+	}
+	
 }
@@ -1,7 +1,7 @@
 package controller;
 
 public enum AlgorithmMode {
-	KRUSKALS, ASTAR;
+	KRUSKALS, BORUVKA, ASTAR, CONTRACTED_ASTAR, BIDIRECTIONAL_ASTAR, DIJKSTRA, DELTA_STEPPING, BFS, ALL_PAIRS;
 	
 	@Override
 	public String toString(){
@@ -9,11 +9,11 @@ public enum AlgorithmMode {
 	}
 	
 	public static String[] nameArray(){
-		return new String[]{ "Kruskals", "AStar" };
+		return new String[]{ "Kruskals", "Boruvka", "AStar", "Contracted AStar", "Bidirectional AStar", "Dijkstra", "Delta Stepping", "BFS", "All Pairs" };
 	}
 	
 	public static AlgorithmMode fromString(String name){
-		name = name.toUpperCase();
+		name = name.toUpperCase().replace(' ', '_');
 		return valueOf(name);
 	}
 	
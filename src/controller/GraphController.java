@@ -2,15 +2,21 @@ package controller;
 
 import java.awt.Color;
 import java.awt.event.MouseEvent;
+import java.io.File;
+import java.io.IOException;
 import java.util.LinkedList;
 import java.util.List;
 
 import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
 
 import algorithms.AStar;
 import algorithms.Algorithm;
 import algorithms.Kruskals;
+import graph.Edge;
 import graph.Graph;
+import graph.GraphFile;
+import graph.GraphListener;
 import graph.Node;
 import gui.GraphCanvas;
 import gui.GraphGui;
@@ -29,12 +35,38 @@ public class GraphController {
 	// the graph being operated upon
 	private Graph graph = new Graph();
 	private LinkedList<Node> selectedNodes = new LinkedList<>();
+
+	// keeps the selection and the running algorithm in step with the graph: an algorithm is
+	// only thrown away once the graph it was set up on changes
+	private GraphListener changes = new GraphListener(){
+		@Override
+		public void nodeAdded(Graph graph, Node node) {
+			stopAlgorithm();
+		}
+
+		@Override
+		public void nodeRemoved(Graph graph, Node node) {
+			stopAlgorithm();
+			selectedNodes.remove(node);
+		}
+
+		@Override
+		public void edgeAdded(Graph graph, Edge edge) {
+			stopAlgorithm();
+		}
+
+		@Override
+		public void edgeRemoved(Graph graph, Edge edge) {
+			stopAlgorithm();
+		}
+	};
 	
 	// the view
 	private GraphGui gui = null;
 	
 	public GraphController(){
 		this.factory = new AlgorithmFactory();
+		graph.addListener(changes);
 	}
 	
 	public void setGUI(GraphGui gui){
@@ -67,7 +99,14 @@ public class GraphController {
 		else if (mode == Mode.GRAPHING){
 			switch (buttonName){
 				case "clear":
-					graph = new Graph();
+					setGraph(new Graph());
+					break;
+				case "save":
+					saveGraph();
+					break;
+				case "load":
+					loadGraph();
+					break;
 			}	
 		}
 		gui.repaint();
@@ -79,11 +118,15 @@ public class GraphController {
 	 */
 	public void mousePressed(MouseEvent click) {
 		Mode mode = getMode();
-		if (mode == Mode.GRAPHING) drawOnScreen(click.getX(),click.getY());
+		if (mode == Mode.GRAPHING && SwingUtilities.isRightMouseButton(click)) eraseFromScreen(click.getX(),click.getY());
+		else if (mode == Mode.GRAPHING) drawOnScreen(click.getX(),click.getY());
 		// need to select inputs
 		else if (mode == Mode.ALGORITHMS && !isRunningAlgorithm()){
 			switch (modeAlgorithm){
 				case ASTAR:
+				case CONTRACTED_ASTAR:
+				case BIDIRECTIONAL_ASTAR:
+				case DIJKSTRA:
 					Node selected = graph.getNode(click.getX(), click.getY());
 					int numSelected = selectedNodes.size();
 					if (selected == null || numSelected >= 2){
@@ -93,7 +136,19 @@ public class GraphController {
 						selectedNodes.add(selected);
 					}
 					break;
+				case DELTA_STEPPING:
+				case BFS:
+				case ALL_PAIRS:
+					Node clicked = graph.getNode(click.getX(), click.getY());
+					if (clicked == null || !selectedNodes.isEmpty()){
+						deselect();
+					}
+					else{
+						selectedNodes.add(clicked);
+					}
+					break;
 				case KRUSKALS:
+				case BORUVKA:
 					break;
 				default:
 					break;
@@ -146,6 +201,17 @@ public class GraphController {
 		}
 	}
 	
+	/**
+	 * Respond to an event where something was erased from the screen. Removes the
+	 * node at that spot along with its edges.
+	 * @param (x,y): point on the screen where the event happened.
+	 */
+	public void eraseFromScreen(int x, int y){
+		Node selected = graph.getNode(x,y);
+		if (selected != null) graph.removeNode(selected);
+		deselect();
+	}
+	
 	/**
 	 * Change the current algorithm that has been selected.
 	 * @param algorithmName
@@ -153,37 +219,90 @@ public class GraphController {
 	public void changeAlgorithm(String algorithmName){
 		if (gui == null) return;
 		modeAlgorithm = AlgorithmMode.fromString(algorithmName);
-		runningAlgorithm = null;
+		stopAlgorithm();
 	}
 	
 	/**
-	 * Change modes.
+	 * Change modes. The running algorithm is kept, so that going back to it after graphing
+	 * picks up where it left off, unless the graph has been changed in the meantime or a
+	 * different algorithm is selected.
 	 * @param name: name of the new mode.
 	 */
 	public void changeMode(String name) {
 		if (gui == null) return;
 		this.mode = Mode.fromString(name);
 		if (mode == null) mode = Mode.GRAPHING;
-		else if (mode == Mode.ALGORITHMS) changeAlgorithm(gui.currentOption());
-		runningAlgorithm = null;
+		else if (mode == Mode.ALGORITHMS && AlgorithmMode.fromString(gui.currentOption()) != modeAlgorithm){
+			changeAlgorithm(gui.currentOption());
+		}
 		gui.repaint();
 	}
 
+	/**
+	 * Ask the user for a file and save the graph to it.
+	 */
+	private void saveGraph(){
+		File file = gui.chooseFile(true);
+		if (file == null) return;
+		try{
+			GraphFile.write(graph, file);
+		}
+		catch(IOException e){
+			gui.createErrorDialog("Couldn't save the graph: " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * Ask the user for a file and replace the graph with the one saved in it.
+	 */
+	private void loadGraph(){
+		File file = gui.chooseFile(false);
+		if (file == null) return;
+		try{
+			setGraph(GraphFile.read(file));
+		}
+		catch(IOException e){
+			gui.createErrorDialog("Couldn't load the graph: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Replace the graph being operated upon, throwing away everything set up on the old one.
+	 * @param replacement: the new graph.
+	 */
+	private void setGraph(Graph replacement){
+		graph.removeListener(changes);
+		graph = replacement;
+		graph.addListener(changes);
+		stopAlgorithm();
+		deselect();
+	}
+
 	/**
 	 * Instantiate the currently-selected algorithm.
 	 */
 	private void createAlgorithm() {
 		if (gui == null) return;
+		stopAlgorithm();
 		try{
 			this.runningAlgorithm = factory.setupAlgorithm(modeAlgorithm,graph,selectedNodes);
 		}
 		catch(SetupException se){
 			gui.createErrorDialog(se.getMessage());
-			this.runningAlgorithm = null;
 			this.modeAlgorithm = null;
 		}
 	}
 
+	/**
+	 * Throw away the current algorithm, if there is one, letting it stop any work it has
+	 * going on in the background.
+	 */
+	private void stopAlgorithm(){
+		if (runningAlgorithm == null) return;
+		runningAlgorithm.dispose();
+		runningAlgorithm = null;
+	}
+
 
 	public boolean isRunningAlgorithm(){
 		return runningAlgorithm != null;
@@ -0,0 +1,308 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A frozen, compressed-sparse-row (CSR) copy of a Graph, held on the heap. The outgoing
+ * arcs of each node are stored contiguously in primitive arrays, so algorithms can walk the
+ * adjacency of a node without chasing pointers through hash maps.
+ */
+public class CompactGraph implements IndexedGraph {
+
+	// node table, indexed by node id
+	private final Node[] nodes;
+	private final int[] xs;
+	private final int[] ys;
+
+	// edge table, indexed by edge id
+	private final Edge[] edges;
+	private final int[] edgeSources;
+	private final int[] edgeTargets;
+
+	// arcs of node u are at [offsets[u], offsets[u+1])
+	private final int[] offsets;
+	private final int[] targets;
+	private final int[] weights;
+	private final int[] arcEdges;
+
+	private final NodeIds nodeIds;
+
+	/**
+	 * Build the CSR representation of the given nodes and edges. Every edge must touch
+	 * two nodes from the given collection of nodes.
+	 * @param nodeSet: nodes in the graph.
+	 * @param edgeSet: edges in the graph.
+	 */
+	CompactGraph(Collection<? extends Node> nodeSet, Collection<? extends Edge> edgeSet){
+
+		// number the nodes
+		int n = nodeSet.size();
+		nodes = new Node[n];
+		xs = new int[n];
+		ys = new int[n];
+		nodeIds = new NodeIds(n);
+		int id = 0;
+		for (Node node : nodeSet){
+			nodes[id] = node;
+			xs[id] = node.XMID;
+			ys[id] = node.YMID;
+			nodeIds.put(node, id);
+			id++;
+		}
+
+		// number the edges and count the out-degree of every node
+		int m = edgeSet.size();
+		edges = new Edge[m];
+		edgeSources = new int[m];
+		edgeTargets = new int[m];
+		offsets = new int[n+1];
+		int arcs = 0;
+		id = 0;
+		for (Edge edge : edgeSet){
+			int u = id(edge.node1);
+			int v = id(edge.node2);
+			if (u < 0 || v < 0) throw new IllegalArgumentException("Edge touches a node that isn't in the graph.");
+			edges[id] = edge;
+			edgeSources[id] = u;
+			edgeTargets[id] = v;
+			offsets[u+1]++;
+			arcs++;
+			if (!edge.directed){
+				offsets[v+1]++;
+				arcs++;
+			}
+			id++;
+		}
+		for (int u = 0; u < n; u++) offsets[u+1] += offsets[u];
+
+		// scatter the arcs into place
+		targets = new int[arcs];
+		weights = new int[arcs];
+		arcEdges = new int[arcs];
+		int[] next = new int[n];
+		System.arraycopy(offsets, 0, next, 0, n);
+		for (int e = 0; e < m; e++){
+			int u = edgeSources[e];
+			int v = edgeTargets[e];
+			int w = edges[e].weight;
+			int arc = next[u]++;
+			targets[arc] = v;
+			weights[arc] = w;
+			arcEdges[arc] = e;
+			if (!edges[e].directed){
+				arc = next[v]++;
+				targets[arc] = u;
+				weights[arc] = w;
+				arcEdges[arc] = e;
+			}
+		}
+
+	}
+
+	/**
+	 * Build a snapshot that extends an older one with nodes and edges added since. Nodes and
+	 * edges keep the ids they had in the older snapshot, and the new ones are numbered after
+	 * them. Tables that haven't changed are shared rather than copied: the node tables if no
+	 * nodes were added, and the edge and arc tables if no edges were.
+	 * @param base: the older snapshot.
+	 * @param addedNodes: nodes added since, none of them in base.
+	 * @param addedEdges: edges added since, none of them in base.
+	 */
+	CompactGraph(CompactGraph base, Collection<? extends Node> addedNodes, Collection<? extends Edge> addedEdges){
+
+		// number the new nodes after the old ones
+		int n0 = base.nodes.length;
+		int n = n0 + addedNodes.size();
+		if (addedNodes.isEmpty()){
+			nodes = base.nodes;
+			xs = base.xs;
+			ys = base.ys;
+			nodeIds = base.nodeIds;
+		}
+		else{
+			nodes = Arrays.copyOf(base.nodes, n);
+			xs = Arrays.copyOf(base.xs, n);
+			ys = Arrays.copyOf(base.ys, n);
+			nodeIds = new NodeIds(base.nodeIds, n);
+			int id = n0;
+			for (Node node : addedNodes){
+				nodes[id] = node;
+				xs[id] = node.XMID;
+				ys[id] = node.YMID;
+				nodeIds.put(node, id);
+				id++;
+			}
+		}
+
+		// without new edges the arcs are just as they were; new nodes have none
+		if (addedEdges.isEmpty()){
+			edges = base.edges;
+			edgeSources = base.edgeSources;
+			edgeTargets = base.edgeTargets;
+			offsets = Arrays.copyOf(base.offsets, n+1);
+			Arrays.fill(offsets, n0+1, n+1, base.offsets[n0]);
+			targets = base.targets;
+			weights = base.weights;
+			arcEdges = base.arcEdges;
+			return;
+		}
+
+		// number the new edges after the old ones, counting the arcs each node gains
+		int m0 = base.edges.length;
+		int m = m0 + addedEdges.size();
+		edges = Arrays.copyOf(base.edges, m);
+		edgeSources = Arrays.copyOf(base.edgeSources, m);
+		edgeTargets = Arrays.copyOf(base.edgeTargets, m);
+		int[] gained = new int[n];
+		int id = m0;
+		for (Edge edge : addedEdges){
+			int u = id(edge.node1);
+			int v = id(edge.node2);
+			if (u < 0 || v < 0) throw new IllegalArgumentException("Edge touches a node that isn't in the graph.");
+			edges[id] = edge;
+			edgeSources[id] = u;
+			edgeTargets[id] = v;
+			gained[u]++;
+			if (!edge.directed) gained[v]++;
+			id++;
+		}
+		offsets = new int[n+1];
+		for (int u = 0; u < n; u++){
+			int had = u < n0 ? base.offsets[u+1] - base.offsets[u] : 0;
+			offsets[u+1] = offsets[u] + had + gained[u];
+		}
+
+		// copy each node's old arcs across in one piece, then put its new arcs after them
+		int arcs = offsets[n];
+		targets = new int[arcs];
+		weights = new int[arcs];
+		arcEdges = new int[arcs];
+		int[] next = new int[n];
+		for (int u = 0; u < n; u++){
+			next[u] = offsets[u];
+			if (u >= n0) continue;
+			int from = base.offsets[u];
+			int had = base.offsets[u+1] - from;
+			System.arraycopy(base.targets, from, targets, next[u], had);
+			System.arraycopy(base.weights, from, weights, next[u], had);
+			System.arraycopy(base.arcEdges, from, arcEdges, next[u], had);
+			next[u] += had;
+		}
+		for (int e = m0; e < m; e++){
+			int u = edgeSources[e];
+			int v = edgeTargets[e];
+			int w = edges[e].weight;
+			int arc = next[u]++;
+			targets[arc] = v;
+			weights[arc] = w;
+			arcEdges[arc] = e;
+			if (!edges[e].directed){
+				arc = next[v]++;
+				targets[arc] = u;
+				weights[arc] = w;
+				arcEdges[arc] = e;
+			}
+		}
+
+	}
+
+	@Override
+	public int nodeCount(){
+		return nodes.length;
+	}
+
+	@Override
+	public int edgeCount(){
+		return edges.length;
+	}
+
+	@Override
+	public int arcCount(){
+		return targets.length;
+	}
+
+	@Override
+	public int id(Node node){
+		return nodeIds.get(node);
+	}
+
+	@Override
+	public Node node(int u){
+		return nodes[u];
+	}
+
+	@Override
+	public int x(int u){
+		return xs[u];
+	}
+
+	@Override
+	public int y(int u){
+		return ys[u];
+	}
+
+	@Override
+	public int firstArc(int u){
+		return offsets[u];
+	}
+
+	@Override
+	public int endArc(int u){
+		return offsets[u+1];
+	}
+
+	@Override
+	public int degree(int u){
+		return offsets[u+1] - offsets[u];
+	}
+
+	@Override
+	public int arcBetween(int u, int v){
+		for (int arc = offsets[u], end = offsets[u+1]; arc < end; arc++){
+			if (targets[arc] == v) return arc;
+		}
+		return -1;
+	}
+
+	@Override
+	public int target(int arc){
+		return targets[arc];
+	}
+
+	@Override
+	public int weight(int arc){
+		return weights[arc];
+	}
+
+	@Override
+	public int arcEdge(int arc){
+		return arcEdges[arc];
+	}
+
+	@Override
+	public Edge edge(int e){
+		return edges[e];
+	}
+
+	@Override
+	public int edgeSource(int e){
+		return edgeSources[e];
+	}
+
+	@Override
+	public int edgeTarget(int e){
+		return edgeTargets[e];
+	}
+
+	@Override
+	public int edgeWeight(int e){
+		return edges[e].weight;
+	}
+
+	@Override
+	public boolean edgeDirected(int e){
+		return edges[e].directed;
+	}
+
+}
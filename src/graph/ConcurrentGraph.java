@@ -0,0 +1,173 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A graph that many threads can add nodes and edges to at the same time. It enforces the
+ * same rules as Graph: a node is not added if it overlaps a node already in the graph, and
+ * an edge is not added if it joins a node to itself or there is already an edge between
+ * its two nodes.
+ *
+ * Duplicate edges are caught without locking, through putIfAbsent on a concurrent edge
+ * index. Overlapping nodes are caught with striped locks over the cells of a spatial grid.
+ * A new node takes the locks covering the 3x3 block of cells around it, so two threads only
+ * wait on each other when they place nodes near each other (or their cells share a stripe).
+ *
+ * Node neighbourhoods are not filled in while ingesting. Call toGraph() or freeze() once the
+ * producers are done to get an ordinary graph to work with.
+ */
+public class ConcurrentGraph {
+
+	private static final int STRIPES = 64;
+
+	private final Set<Node> nodes;
+	private final Set<Edge> edges;
+	private final ConcurrentMap<NodePair,Edge> edgeIndex;
+	private final ConcurrentMap<Long,List<Node>> cells;
+	private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+	private final AtomicLong version = new AtomicLong();
+
+	public ConcurrentGraph(){
+		this(16,16);
+	}
+
+	/**
+	 * @param expectedNodes: number of nodes the graph will hold.
+	 * @param expectedEdges: number of edges the graph will hold.
+	 */
+	public ConcurrentGraph(int expectedNodes, int expectedEdges){
+		nodes = ConcurrentHashMap.newKeySet(expectedNodes);
+		edges = ConcurrentHashMap.newKeySet(expectedEdges);
+		edgeIndex = new ConcurrentHashMap<>(expectedEdges);
+		cells = new ConcurrentHashMap<>(expectedNodes);
+		for (int i = 0; i < STRIPES; i++) locks[i] = new ReentrantLock();
+	}
+
+	/**
+	 * Creates a node with its top-left corner at (x,y) and adds it to this graph. The node
+	 * will not be added if it overlaps with any of the other nodes.
+	 * @param x: left of the node.
+	 * @param y: top of the node.
+	 * @return: the new node, or null if it wasn't added.
+	 */
+	public Node createNode(int x, int y){
+		Node node = new Node(x,y);
+		int cx = SpatialGrid.cell(node.XMID);
+		int cy = SpatialGrid.cell(node.YMID);
+
+		// take the stripes covering the 3x3 block in ascending order, so threads can't deadlock
+		int[] stripes = new int[9];
+		int k = 0;
+		for (int i = cx-1; i <= cx+1; i++){
+			for (int j = cy-1; j <= cy+1; j++) stripes[k++] = stripe(SpatialGrid.key(i,j));
+		}
+		Arrays.sort(stripes);
+		int taken = 0;
+		for (int i = 0; i < stripes.length; i++){
+			if (i > 0 && stripes[i] == stripes[i-1]) continue;
+			locks[stripes[i]].lock();
+			stripes[taken++] = stripes[i];
+		}
+		try{
+			for (int i = cx-1; i <= cx+1; i++){
+				for (int j = cy-1; j <= cy+1; j++){
+					List<Node> bucket = cells.get(SpatialGrid.key(i,j));
+					if (bucket == null) continue;
+					for (Node other : bucket){
+						if (Graph.overlapping(node, other)) return null;
+					}
+				}
+			}
+			long key = SpatialGrid.key(cx,cy);
+			List<Node> bucket = cells.get(key);
+			if (bucket == null){
+				bucket = new ArrayList<>(2);
+				cells.put(key, bucket);
+			}
+			bucket.add(node);
+			nodes.add(node);
+		}
+		finally{
+			for (int i = taken-1; i >= 0; i--) locks[stripes[i]].unlock();
+		}
+		version.incrementAndGet();
+		return node;
+	}
+
+	/**
+	 * Creates an edge between node1 and node2 and adds it to this graph. The edge will not be
+	 * added if node1 == node2 or if there already exists an edge between node1 and node2.
+	 * @param node1: first node the edge touches.
+	 * @param node2: second node the edge touches.
+	 * @param directed: if the edge is directed.
+	 * @param weight: weight of the edge.
+	 * @return: true if the edge was added; false otherwise.
+	 */
+	public boolean createEdge(Node node1, Node node2, boolean directed, int weight){
+		if (node1 == null || node2 == null) throw new NullPointerException("Adding an edge that touches a null node.");
+		if (!nodes.contains(node1) || !nodes.contains(node2)){
+			throw new IllegalArgumentException("Adding an edge that touches a node that isn't in the graph.");
+		}
+		if (node1 == node2) return false;
+		Edge edge = new Edge(node1,node2,directed,weight);
+		if (edgeIndex.putIfAbsent(new NodePair(node1,node2), edge) != null) return false;
+		edges.add(edge);
+		version.incrementAndGet();
+		return true;
+	}
+
+	/**
+	 * @return: number of nodes in this graph.
+	 */
+	public int nodeCount(){
+		return nodes.size();
+	}
+
+	/**
+	 * @return: number of edges in this graph.
+	 */
+	public int edgeCount(){
+		return edges.size();
+	}
+
+	/**
+	 * @return: number of nodes and edges that have been added to this graph so far.
+	 */
+	public long version(){
+		return version.get();
+	}
+
+	/**
+	 * Copy this graph into an ordinary Graph, filling in node neighbourhoods. Producers must
+	 * have stopped adding to this graph first.
+	 * @return: a Graph holding the same nodes and edges.
+	 */
+	public Graph toGraph(){
+		Graph graph = new Graph(nodes.size(), edges.size());
+		for (Node node : nodes) graph.insertNode(node);
+		for (Edge edge : edges) graph.insertEdge(edge);
+		return graph;
+	}
+
+	/**
+	 * Freeze this graph into a compact, integer-indexed copy. Producers must have stopped
+	 * adding to this graph first.
+	 * @return: a CompactGraph holding the same nodes and edges.
+	 */
+	public CompactGraph freeze(){
+		return new CompactGraph(nodes, edges);
+	}
+
+	private static int stripe(long key){
+		key *= 0x9E3779B97F4A7C15L;
+		return (int)(key >>> 58);
+	}
+
+}
@@ -2,7 +2,11 @@ package graph;
 
 import java.awt.Color;
 import java.awt.Graphics;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -13,8 +17,44 @@ import java.util.Set;
  */
 public class Graph{
 
-	private Set<Node> nodes = new HashSet<>();
-	private Set<Edge> edges = new HashSet<>();
+	private Set<Node> nodes;
+	private Set<Edge> edges;
+	private Map<NodePair,Edge> edgeIndex;
+	private SpatialGrid grid = new SpatialGrid();
+
+	// bumped on every change to the graph; listeners are told about each change
+	private long version = 0;
+	private List<GraphListener> listeners = new ArrayList<>();
+
+	// the last snapshot handed out, and the version it was taken at. Nodes and edges added
+	// since are kept so the next snapshot can extend it, unless something has been removed.
+	private CompactGraph snapshot = null;
+	private long snapshotVersion = -1;
+	private List<Node> addedNodes = new ArrayList<>();
+	private List<Edge> addedEdges = new ArrayList<>();
+	private boolean removedSinceSnapshot = false;
+
+	public Graph(){
+		nodes = new HashSet<>();
+		edges = new HashSet<>();
+		edgeIndex = new HashMap<>();
+	}
+
+	/**
+	 * Creates an empty graph whose tables are sized up front for the given number of nodes
+	 * and edges, so that filling it in doesn't rehash them over and over.
+	 * @param expectedNodes: number of nodes the graph will hold.
+	 * @param expectedEdges: number of edges the graph will hold.
+	 */
+	Graph(int expectedNodes, int expectedEdges){
+		nodes = new HashSet<>(capacityFor(expectedNodes));
+		edges = new HashSet<>(capacityFor(expectedEdges));
+		edgeIndex = new HashMap<>(capacityFor(expectedEdges));
+	}
+
+	private static int capacityFor(int size){
+		return (int)Math.min(1 << 30, size / 3L * 4 + 16);
+	}
 
 	/**
 	 * Creates a node centred at (x,y) from the given arguments and adds it to the set of nodes
@@ -25,10 +65,25 @@ public class Graph{
 	 */
 	public boolean createNode(int x, int y){
 		Node node = new Node(x,y);
-		for (Node other : nodes){
-			if (overlapping(node,other)) return false;
-		}
-		nodes.add(new Node(x,y));
+		if (grid.overlapping(node) != null) return false;
+		insertNode(node);
+		for (GraphListener listener : listeners) listener.nodeAdded(this, node);
+		return true;
+	}
+
+	/**
+	 * Removes a node from this graph, along with every edge touching it.
+	 * @param node: node to remove.
+	 * @return: true if the node was in this graph and was removed; false otherwise.
+	 */
+	public boolean removeNode(Node node){
+		if (!nodes.contains(node)) return false;
+		while (node.degree() > 0) removeEdge(node.neighbourEdge(node.degree()-1));
+		nodes.remove(node);
+		grid.remove(node);
+		forgetAdditions();
+		version++;
+		for (GraphListener listener : listeners) listener.nodeRemoved(this, node);
 		return true;
 	}
 
@@ -45,27 +100,142 @@ public class Graph{
 	public boolean createEdge(Node node1, Node node2, boolean directed, int weight){
 		if (node1 == null || node2 == null) throw new NullPointerException("Adding an edge that touches a null node.");
 		if (node1 == node2) return false;
-		if (edgeBetween(node1,node2) != null) return false;
+		if (edgeIndex.containsKey(new NodePair(node1,node2))) return false;
 		Edge edge = new Edge(node1,node2,directed,weight);
+		insertEdge(edge);
+		for (GraphListener listener : listeners) listener.edgeAdded(this, edge);
+		return true;
+	}
+
+	/**
+	 * Adds a node to this graph without checking whether it overlaps with anything, and
+	 * without telling listeners. Callers must have done the checks already.
+	 * @param node: node to add.
+	 */
+	void insertNode(Node node){
+		nodes.add(node);
+		grid.add(node);
+		if (snapshot != null && !removedSinceSnapshot) addedNodes.add(node);
+		version++;
+	}
+
+	/**
+	 * Adds an edge to this graph without checking for duplicates, and without telling
+	 * listeners. Callers must have done the checks already.
+	 * @param edge: edge to add.
+	 */
+	void insertEdge(Edge edge){
 		edges.add(edge); // dirty but needed to prevent illegal modification
-		node1.addNeighbour(edge, node2);
-		node2.addNeighbour(edge, node1);
+		edgeIndex.put(new NodePair(edge.node1,edge.node2), edge);
+		edge.node1.addNeighbour(edge, edge.node2);
+		edge.node2.addNeighbour(edge, edge.node1);
+		if (snapshot != null && !removedSinceSnapshot) addedEdges.add(edge);
+		version++;
+	}
+
+	/**
+	 * After a removal the next snapshot is built from scratch, so what was added since the
+	 * last one needn't be kept, and mustn't be: it could keep removed nodes and edges alive.
+	 */
+	private void forgetAdditions(){
+		removedSinceSnapshot = true;
+		addedNodes.clear();
+		addedEdges.clear();
+	}
+
+	/**
+	 * Checks whether a node would overlap with any node already in this graph.
+	 * @param node: node to check.
+	 * @return: true if the node overlaps with a node in this graph.
+	 */
+	boolean overlapsAny(Node node){
+		return grid.overlapping(node) != null;
+	}
+
+	/**
+	 * Removes an edge from this graph and from the neighbourhoods of the nodes it touches.
+	 * @param edge: edge to remove.
+	 * @return: true if the edge was in this graph and was removed; false otherwise.
+	 */
+	public boolean removeEdge(Edge edge){
+		if (!edges.remove(edge)) return false;
+		edgeIndex.remove(new NodePair(edge.node1, edge.node2));
+		edge.node1.removeNeighbour(edge);
+		edge.node2.removeNeighbour(edge);
+		forgetAdditions();
+		version++;
+		for (GraphListener listener : listeners) listener.edgeRemoved(this, edge);
 		return true;
 	}
 
 	/**
-	 * Find and return the edge between the given nodes.
+	 * Returns the version of this graph. The version starts at zero and goes up every time
+	 * a node or edge is added or removed, so two calls that return the same version saw the
+	 * same graph.
+	 * @return: version of this graph.
+	 */
+	public long version(){
+		return version;
+	}
+
+	/**
+	 * Register a listener to be told about every change to this graph.
+	 * @param listener: the listener.
+	 */
+	public void addListener(GraphListener listener){
+		listeners.add(listener);
+	}
+
+	/**
+	 * Stop telling a listener about changes to this graph.
+	 * @param listener: the listener.
+	 */
+	public void removeListener(GraphListener listener){
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Find and return the edge between the given nodes, in either direction. Takes
+	 * constant time.
+	 * @param node1: first node.
+	 * @param node2: second node.
+	 * @return: the edge (node1,node2) or (node2,node1), or null if there isn't one.
+	 */
+	public Edge getEdge(Node node1, Node node2){
+		return edgeIndex.get(new NodePair(node1,node2));
+	}
+
+	/**
+	 * Find and return the edge between the given nodes, by looking through node1's
+	 * neighbours.
 	 * @param node1: first node.
 	 * @param node2: second node.
 	 * @return: the edge (node1,node2), or null if there isn't one.
+	 * @deprecated: takes time linear in the degree of node1. Use getEdge on the graph the
+	 * nodes are in, which takes constant time.
 	 */
+	@Deprecated
 	public static Edge edgeBetween(Node node1, Node node2){
-		for (Map.Entry<Edge,Node> entry : node1.getNeighbours().entrySet()){
-			if (entry.getValue() == node2) return entry.getKey();
+		for (int i = 0; i < node1.degree(); i++){
+			if (node1.neighbour(i) == node2) return node1.neighbourEdge(i);
 		}
 		return null;
 	}
 
+	/**
+	 * Find and return the edge that can be travelled from node1 to node2. That is
+	 * either an undirected edge between them, or a directed edge (node1,node2).
+	 * Takes constant time.
+	 * @param node1: node to travel from.
+	 * @param node2: node to travel to.
+	 * @return: the edge going from node1 to node2, or null if there isn't one.
+	 */
+	public Edge edgeFrom(Node node1, Node node2){
+		Edge edge = getEdge(node1,node2);
+		if (edge == null || !edge.directed || edge.node1 == node1) return edge;
+		return null;
+	}
+
 	/**
 	 * Check if the given nodes overlap with each other.
 	 * @param node1: first node.
@@ -87,24 +257,68 @@ public class Graph{
 	 * @return: the node containing the point (x,y), or null if there is none.
 	 */
 	public Node getNode(int x, int y){
-		for (Node node : nodes) if (node.contains(x,y)) return node;
-		return null;
+		return grid.nodeAt(x,y);
 	}
 
 	/**
-	 * Return a read-only view of nodes in this set.
+	 * Find and return every node that lies inside or touches the given rectangle.
+	 * @param x: left edge of the rectangle.
+	 * @param y: top edge of the rectangle.
+	 * @param width: width of the rectangle.
+	 * @param height: height of the rectangle.
+	 * @return: list of nodes in the rectangle.
+	 */
+	public List<Node> getNodes(int x, int y, int width, int height){
+		return grid.nodesIn(x,y,width,height);
+	}
+
+	/**
+	 * Return a read-only view of nodes in this set. The view is live: it changes as the
+	 * graph does. Use freeze() to get something that doesn't.
 	 * @return: set of nodes in this graph.
 	 */
 	public Set<? extends Node> getNodes(){
-		return nodes;
+		return Collections.unmodifiableSet(nodes);
 	}
 
 	/**
-	 * Return a read-only view of edges in this set.
-	 * @return: set of eges in th
+	 * Return a read-only view of edges in this set. The view is live: it changes as the
+	 * graph does. Use freeze() to get something that doesn't.
+	 * @return: set of edges in this graph.
 	 */
 	public Set<? extends Edge> getEdges(){
-		return edges;
+		return Collections.unmodifiableSet(edges);
+	}
+
+	/**
+	 * Take an immutable snapshot of this graph: a compact, integer-indexed copy that
+	 * algorithms and renderers can hold on to and traverse cheaply. Later changes to this
+	 * graph are not reflected in the snapshot, so it stays consistent while the graph keeps
+	 * being edited, and it is safe to hand to another thread.
+	 *
+	 * Snapshots are copy-on-write: the copy is only made the first time this is called after
+	 * the graph changes, and calls in between return the same snapshot. The graph itself is
+	 * not thread-safe, so call this on the thread that edits the graph.
+	 *
+	 * Making a new snapshot costs time linear in the size of the graph. If nodes and edges
+	 * have only been added since the last one, it is built from the last one: the tables that
+	 * haven't changed are shared, and the arcs are copied across a node at a time. After a
+	 * removal it is built from scratch. Either way it is a different snapshot, so anything
+	 * worked out for the old one, such as A*'s weights, a ContractionHierarchy or the
+	 * DistanceMatrix shown by AllPairs, has to be worked out again. Freeze once a batch of edits is
+	 * done, rather than after each one.
+	 * @return: a CompactGraph holding the current nodes and edges of this graph.
+	 */
+	public CompactGraph freeze(){
+		if (snapshot == null || snapshotVersion != version){
+			if (snapshot == null || removedSinceSnapshot) snapshot = new CompactGraph(nodes, edges);
+			else snapshot = new CompactGraph(snapshot, addedNodes, addedEdges);
+			snapshotVersion = version;
+			addedNodes.clear();
+			addedEdges.clear();
+			removedSinceSnapshot = false;
+		}
+		return snapshot;
 	}
 
 	/**
@@ -0,0 +1,203 @@
+package graph;
+
+import java.util.Arrays;
+
+/**
+ * Builds a Graph from a batch of nodes and edges in one go. Loading a large graph through
+ * Graph.createNode and Graph.createEdge pays for listener calls and table growth on every
+ * element; the builder instead buffers everything in primitive arrays, sizes the graph's
+ * tables once, and checks for overlapping nodes and duplicate edges in a single pass.
+ *
+ * Nodes are referred to by the index addNode returned for them. The rules are the same as
+ * for Graph: a node that overlaps an earlier node is dropped (along with every edge touching
+ * it), and an edge that joins a node to itself or duplicates an earlier edge between the
+ * same two nodes is dropped.
+ */
+public class GraphBuilder {
+
+	// node table: top-left corner of each node
+	private int[] xs;
+	private int[] ys;
+	private int nodeCount = 0;
+
+	// edge table
+	private int[] froms;
+	private int[] tos;
+	private int[] weights;
+	private boolean[] directed;
+	private int edgeCount = 0;
+
+	private int rejectedNodes = 0;
+	private int rejectedEdges = 0;
+
+	public GraphBuilder(){
+		this(16,16);
+	}
+
+	/**
+	 * @param expectedNodes: number of nodes that will be added.
+	 * @param expectedEdges: number of edges that will be added.
+	 */
+	public GraphBuilder(int expectedNodes, int expectedEdges){
+		xs = new int[Math.max(1,expectedNodes)];
+		ys = new int[xs.length];
+		froms = new int[Math.max(1,expectedEdges)];
+		tos = new int[froms.length];
+		weights = new int[froms.length];
+		directed = new boolean[froms.length];
+	}
+
+	/**
+	 * Add a node whose top-left corner is at (x,y).
+	 * @param x: left of the node.
+	 * @param y: top of the node.
+	 * @return: index of the node, for use with addEdge.
+	 */
+	public int addNode(int x, int y){
+		if (nodeCount == xs.length){
+			xs = Arrays.copyOf(xs, nodeCount*2);
+			ys = Arrays.copyOf(ys, nodeCount*2);
+		}
+		xs[nodeCount] = x;
+		ys[nodeCount] = y;
+		return nodeCount++;
+	}
+
+	/**
+	 * Add a batch of nodes. The i-th node has its top-left corner at (x[i],y[i]).
+	 * @param x: left of each node.
+	 * @param y: top of each node.
+	 * @return: index of the first node added; the rest follow consecutively.
+	 */
+	public int addNodes(int[] x, int[] y){
+		if (x.length != y.length) throw new IllegalArgumentException("Coordinate arrays have different lengths.");
+		int first = nodeCount;
+		int needed = nodeCount + x.length;
+		if (needed > xs.length){
+			xs = Arrays.copyOf(xs, Math.max(needed, nodeCount*2));
+			ys = Arrays.copyOf(ys, xs.length);
+		}
+		System.arraycopy(x, 0, xs, nodeCount, x.length);
+		System.arraycopy(y, 0, ys, nodeCount, y.length);
+		nodeCount = needed;
+		return first;
+	}
+
+	/**
+	 * Add an edge between two nodes.
+	 * @param from: index of the first node the edge touches.
+	 * @param to: index of the second node the edge touches.
+	 * @param dir: if the edge is directed.
+	 * @param weight: weight of the edge.
+	 */
+	public void addEdge(int from, int to, boolean dir, int weight){
+		if (edgeCount == froms.length) growEdges(edgeCount*2);
+		froms[edgeCount] = from;
+		tos[edgeCount] = to;
+		directed[edgeCount] = dir;
+		weights[edgeCount] = weight;
+		edgeCount++;
+	}
+
+	/**
+	 * Add a batch of edges. The i-th edge goes from node from[i] to node to[i].
+	 * @param from: index of the first node each edge touches.
+	 * @param to: index of the second node each edge touches.
+	 * @param dir: if each edge is directed.
+	 * @param weight: weight of each edge.
+	 */
+	public void addEdges(int[] from, int[] to, boolean[] dir, int[] weight){
+		int n = from.length;
+		if (to.length != n || dir.length != n || weight.length != n){
+			throw new IllegalArgumentException("Edge arrays have different lengths.");
+		}
+		if (edgeCount + n > froms.length) growEdges(Math.max(edgeCount + n, edgeCount*2));
+		System.arraycopy(from, 0, froms, edgeCount, n);
+		System.arraycopy(to, 0, tos, edgeCount, n);
+		System.arraycopy(dir, 0, directed, edgeCount, n);
+		System.arraycopy(weight, 0, weights, edgeCount, n);
+		edgeCount += n;
+	}
+
+	private void growEdges(int capacity){
+		froms = Arrays.copyOf(froms, capacity);
+		tos = Arrays.copyOf(tos, capacity);
+		weights = Arrays.copyOf(weights, capacity);
+		directed = Arrays.copyOf(directed, capacity);
+	}
+
+	/**
+	 * Build the graph. The builder can't be used after this.
+	 * @return: a graph holding every node and edge that passed validation.
+	 */
+	public Graph build(){
+		Graph graph = new Graph(nodeCount, edgeCount);
+
+		// nodes: overlap checks go through the graph's spatial grid
+		Node[] built = new Node[nodeCount];
+		for (int i = 0; i < nodeCount; i++){
+			Node node = new Node(xs[i], ys[i]);
+			if (graph.overlapsAny(node)){
+				rejectedNodes++;
+				continue;
+			}
+			graph.insertNode(node);
+			built[i] = node;
+		}
+
+		// edges: duplicates are found with an open-addressed hash set of node pairs
+		long[] seen = new long[tableSize(edgeCount)];
+		int mask = seen.length - 1;
+		for (int e = 0; e < edgeCount; e++){
+			int u = froms[e];
+			int v = tos[e];
+			if (u < 0 || u >= nodeCount || v < 0 || v >= nodeCount){
+				throw new IndexOutOfBoundsException("Edge " + e + " touches a node that doesn't exist.");
+			}
+			if (u == v || built[u] == null || built[v] == null){
+				rejectedEdges++;
+				continue;
+			}
+			long key = ((long)Math.min(u,v) << 32 | Math.max(u,v)) + 1; // never 0, which marks an empty slot
+			int slot = mix(key) & mask;
+			while (seen[slot] != 0 && seen[slot] != key) slot = (slot + 1) & mask;
+			if (seen[slot] == key){
+				rejectedEdges++;
+				continue;
+			}
+			seen[slot] = key;
+			graph.insertEdge(new Edge(built[u], built[v], directed[e], weights[e]));
+		}
+
+		xs = ys = froms = tos = weights = null;
+		directed = null;
+		return graph;
+	}
+
+	/**
+	 * @return: number of nodes dropped by build() because they overlapped an earlier node.
+	 */
+	public int rejectedNodes(){
+		return rejectedNodes;
+	}
+
+	/**
+	 * @return: number of edges dropped by build() because they were loops, duplicates, or
+	 * touched a dropped node.
+	 */
+	public int rejectedEdges(){
+		return rejectedEdges;
+	}
+
+	private static int tableSize(int entries){
+		int size = 2;
+		while (size < entries * 2L && size < (1 << 30)) size <<= 1;
+		return size;
+	}
+
+	private static int mix(long key){
+		key *= 0x9E3779B97F4A7C15L;
+		return (int)(key ^ (key >>> 32));
+	}
+
+}
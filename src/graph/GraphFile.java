@@ -0,0 +1,131 @@
+package graph;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads and writes graphs in a compact binary format. Every record is fixed-width, so a
+ * tool can jump straight to any node or edge without parsing what comes before it:
+ *
+ * 	header	(16 bytes)		magic, version, nodeCount, edgeCount
+ * 	node i	(8 bytes, at 16 + 8i)	x, y		(top-left corner of the node)
+ * 	edge j	(16 bytes, at 16 + 8n + 16j)	from, to, weight, flags	(bit 0 of flags: directed)
+ *
+ * All values are big-endian ints. Edges refer to nodes by their index in the node table.
+ * Files are read and written through a FileChannel in large blocks.
+ */
+public class GraphFile {
+
+	public static final int MAGIC = 0x47524648; // "GRFH"
+	public static final int VERSION = 1;
+	public static final int HEADER_BYTES = 16;
+	public static final int NODE_BYTES = 8;
+	public static final int EDGE_BYTES = 16;
+
+	private static final int BUFFER_BYTES = 1 << 20;
+	private static final int FLAG_DIRECTED = 1;
+
+	private GraphFile(){}
+
+	/**
+	 * Write a graph to a file. The file is overwritten if it exists.
+	 * @param graph: graph to save.
+	 * @param file: file to save to.
+	 * @throws IOException: if the file can't be written.
+	 */
+	public static void write(Graph graph, File file) throws IOException{
+		write(graph.freeze(), file);
+	}
+
+	/**
+	 * Write a graph to a file. The file is overwritten if it exists.
+	 * @param graph: graph to save.
+	 * @param file: file to save to.
+	 * @throws IOException: if the file can't be written.
+	 */
+	public static void write(IndexedGraph graph, File file) throws IOException{
+		int n = graph.nodeCount();
+		int m = graph.edgeCount();
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()){
+			channel.truncate(0);
+			ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+			buffer.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(m);
+			for (int u = 0; u < n; u++){
+				if (buffer.remaining() < NODE_BYTES) flush(channel, buffer);
+				buffer.putInt(graph.x(u) - Node.RADIUS).putInt(graph.y(u) - Node.RADIUS);
+			}
+			for (int e = 0; e < m; e++){
+				if (buffer.remaining() < EDGE_BYTES) flush(channel, buffer);
+				buffer.putInt(graph.edgeSource(e))
+					.putInt(graph.edgeTarget(e))
+					.putInt(graph.edgeWeight(e))
+					.putInt(graph.edgeDirected(e) ? FLAG_DIRECTED : 0);
+			}
+			flush(channel, buffer);
+		}
+	}
+
+	/**
+	 * Read a graph from a file written by write().
+	 * @param file: file to load.
+	 * @return: the graph.
+	 * @throws IOException: if the file can't be read or isn't a graph file.
+	 */
+	public static Graph read(File file) throws IOException{
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()){
+			ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+			buffer.flip();
+			fill(channel, buffer, HEADER_BYTES);
+			if (buffer.getInt() != MAGIC) throw new IOException("Not a graph file.");
+			int version = buffer.getInt();
+			if (version != VERSION) throw new IOException("Unsupported graph file version " + version + ".");
+			int n = buffer.getInt();
+			int m = buffer.getInt();
+			if (n < 0 || m < 0 || channel.size() != HEADER_BYTES + (long)NODE_BYTES*n + (long)EDGE_BYTES*m){
+				throw new IOException("Graph file is truncated or corrupt.");
+			}
+
+			GraphBuilder builder = new GraphBuilder(n, m);
+			for (int u = 0; u < n; u++){
+				fill(channel, buffer, NODE_BYTES);
+				builder.addNode(buffer.getInt(), buffer.getInt());
+			}
+			for (int e = 0; e < m; e++){
+				fill(channel, buffer, EDGE_BYTES);
+				int from = buffer.getInt();
+				int to = buffer.getInt();
+				int weight = buffer.getInt();
+				int flags = buffer.getInt();
+				if (from < 0 || from >= n || to < 0 || to >= n) throw new IOException("Edge " + e + " touches a node that doesn't exist.");
+				builder.addEdge(from, to, (flags & FLAG_DIRECTED) != 0, weight);
+			}
+			return builder.build();
+		}
+	}
+
+	/**
+	 * Write out everything in the buffer and clear it.
+	 */
+	private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException{
+		buffer.flip();
+		while (buffer.hasRemaining()) channel.write(buffer);
+		buffer.clear();
+	}
+
+	/**
+	 * Make sure the buffer has at least the given number of bytes ready to be read,
+	 * reading the next block from the channel if it doesn't.
+	 */
+	private static void fill(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException{
+		if (buffer.remaining() >= bytes) return;
+		buffer.compact();
+		while (buffer.position() < bytes){
+			if (channel.read(buffer) < 0) throw new IOException("Unexpected end of graph file.");
+		}
+		buffer.flip();
+	}
+
+}
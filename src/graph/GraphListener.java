@@ -0,0 +1,39 @@
+package graph;
+
+/**
+ * Listens for changes to a Graph. Each callback is made after the change has been applied
+ * and the graph's version has been bumped, so listeners can keep derived structures (caches,
+ * indexes, partial results) up to date instead of rebuilding them from scratch.
+ */
+public interface GraphListener {
+
+	/**
+	 * Called after a node has been added to the graph.
+	 * @param graph: the graph that changed.
+	 * @param node: the new node.
+	 */
+	void nodeAdded(Graph graph, Node node);
+
+	/**
+	 * Called after a node has been removed from the graph. Any edges touching the node
+	 * are removed (and reported) first.
+	 * @param graph: the graph that changed.
+	 * @param node: the removed node.
+	 */
+	void nodeRemoved(Graph graph, Node node);
+
+	/**
+	 * Called after an edge has been added to the graph.
+	 * @param graph: the graph that changed.
+	 * @param edge: the new edge.
+	 */
+	void edgeAdded(Graph graph, Edge edge);
+
+	/**
+	 * Called after an edge has been removed from the graph.
+	 * @param graph: the graph that changed.
+	 * @param edge: the removed edge.
+	 */
+	void edgeRemoved(Graph graph, Edge edge);
+
+}
@@ -0,0 +1,134 @@
+package graph;
+
+/**
+ * Read and traversal API over a graph whose nodes and edges have been given dense integer
+ * ids. Nodes are numbered [0, nodeCount()) and edges [0, edgeCount()). The outgoing arcs
+ * of node u are numbered [firstArc(u), endArc(u)), so walking a node's adjacency is a loop
+ * over primitive values:
+ *
+ * 	for (int arc = g.firstArc(u); arc < g.endArc(u); arc++){
+ * 		int v = g.target(arc);
+ * 		int w = g.weight(arc);
+ * 	}
+ *
+ * An undirected edge contributes one arc in each direction. A directed edge contributes
+ * a single arc from node1 to node2. Implementations never change once built.
+ */
+public interface IndexedGraph {
+
+	/**
+	 * @return: number of nodes in this graph.
+	 */
+	int nodeCount();
+
+	/**
+	 * @return: number of edges in this graph.
+	 */
+	int edgeCount();
+
+	/**
+	 * @return: number of arcs in this graph. Undirected edges count twice.
+	 */
+	int arcCount();
+
+	/**
+	 * Return the id of the given node.
+	 * @param node: a node.
+	 * @return: id of the node, or -1 if it isn't in this graph.
+	 */
+	int id(Node node);
+
+	/**
+	 * @param u: id of a node.
+	 * @return: the node with id u.
+	 */
+	Node node(int u);
+
+	/**
+	 * @param u: id of a node.
+	 * @return: x coordinate of the centre of node u.
+	 */
+	int x(int u);
+
+	/**
+	 * @param u: id of a node.
+	 * @return: y coordinate of the centre of node u.
+	 */
+	int y(int u);
+
+	/**
+	 * @param u: id of a node.
+	 * @return: index of the first outgoing arc of u.
+	 */
+	int firstArc(int u);
+
+	/**
+	 * @param u: id of a node.
+	 * @return: one past the index of the last outgoing arc of u.
+	 */
+	int endArc(int u);
+
+	/**
+	 * @param u: id of a node.
+	 * @return: number of outgoing arcs of u.
+	 */
+	int degree(int u);
+
+	/**
+	 * Find an arc that can be travelled from one node to another. Takes time linear in the
+	 * degree of u.
+	 * @param u: id of the node to travel from.
+	 * @param v: id of the node to travel to.
+	 * @return: index of an arc from u to v, or -1 if there isn't one.
+	 */
+	int arcBetween(int u, int v);
+
+	/**
+	 * @param arc: index of an arc.
+	 * @return: id of the node the arc points to.
+	 */
+	int target(int arc);
+
+	/**
+	 * @param arc: index of an arc.
+	 * @return: weight of the edge the arc came from.
+	 */
+	int weight(int arc);
+
+	/**
+	 * @param arc: index of an arc.
+	 * @return: id of the edge the arc came from.
+	 */
+	int arcEdge(int arc);
+
+	/**
+	 * @param e: id of an edge.
+	 * @return: the edge with id e.
+	 */
+	Edge edge(int e);
+
+	/**
+	 * @param e: id of an edge.
+	 * @return: id of the edge's node1.
+	 */
+	int edgeSource(int e);
+
+	/**
+	 * @param e: id of an edge.
+	 * @return: id of the edge's node2.
+	 */
+	int edgeTarget(int e);
+
+	/**
+	 * @param e: id of an edge.
+	 * @return: weight of the edge.
+	 */
+	int edgeWeight(int e);
+
+	/**
+	 * @param e: id of an edge.
+	 * @return: true if the edge is directed.
+	 */
+	boolean edgeDirected(int e);
+
+}
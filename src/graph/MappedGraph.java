@@ -0,0 +1,285 @@
+package graph;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * A frozen graph whose node coordinates and CSR adjacency live in a memory-mapped file
+ * rather than on the heap, so it can be larger than the heap and the OS page cache does
+ * the work of keeping the hot parts in memory. Opening a file that has already been
+ * written only maps it, so it takes next to no time however big the graph is.
+ *
+ * The file is a 32 byte header followed by int arrays, all big-endian:
+ *
+ * 	header:	magic, version, nodeCount, edgeCount, arcCount, (padding)
+ * 	nodes:	x[nodeCount], y[nodeCount]                       (centre of each node)
+ * 	edges:	source[edgeCount], target[edgeCount], weight[edgeCount], directed[edgeCount]
+ * 	arcs:	offsets[nodeCount+1], targets[arcCount], weights[arcCount], arcEdges[arcCount]
+ *
+ * Node and Edge objects are only made when node(u) or edge(e) is asked for, and are then
+ * kept so the same id always gives back the same object.
+ */
+public class MappedGraph implements IndexedGraph {
+
+	private static final int MAGIC = 0x47444353; // "GDCS"
+	private static final int VERSION = 1;
+	private static final int HEADER_BYTES = 32;
+
+	private final int nodeCount;
+	private final int edgeCount;
+	private final int arcCount;
+
+	private final IntRegion xs;
+	private final IntRegion ys;
+	private final IntRegion edgeSources;
+	private final IntRegion edgeTargets;
+	private final IntRegion edgeWeights;
+	private final IntRegion edgeDirections;
+	private final IntRegion offsets;
+	private final IntRegion targets;
+	private final IntRegion weights;
+	private final IntRegion arcEdges;
+
+	// objects handed out by node(u) and edge(e)
+	private final Map<Integer,Node> nodes = new HashMap<>();
+	private final Map<Node,Integer> nodeIds = new IdentityHashMap<>();
+	private final Map<Integer,Edge> edges = new HashMap<>();
+
+	private MappedGraph(FileChannel channel) throws IOException{
+		ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+		while (header.hasRemaining()){
+			if (channel.read(header, header.position()) < 0) throw new IOException("File is too short to hold a graph.");
+		}
+		header.flip();
+		if (header.getInt() != MAGIC) throw new IOException("Not a mapped graph file.");
+		int version = header.getInt();
+		if (version != VERSION) throw new IOException("Unsupported mapped graph version " + version + ".");
+		nodeCount = header.getInt();
+		edgeCount = header.getInt();
+		arcCount = header.getInt();
+		if (channel.size() != fileSize(nodeCount, edgeCount, arcCount)){
+			throw new IOException("Mapped graph file is truncated or corrupt.");
+		}
+
+		long at = HEADER_BYTES;
+		xs = new IntRegion(channel, at, nodeCount);                 at += 4L * nodeCount;
+		ys = new IntRegion(channel, at, nodeCount);                 at += 4L * nodeCount;
+		edgeSources = new IntRegion(channel, at, edgeCount);        at += 4L * edgeCount;
+		edgeTargets = new IntRegion(channel, at, edgeCount);        at += 4L * edgeCount;
+		edgeWeights = new IntRegion(channel, at, edgeCount);        at += 4L * edgeCount;
+		edgeDirections = new IntRegion(channel, at, edgeCount);     at += 4L * edgeCount;
+		offsets = new IntRegion(channel, at, nodeCount + 1L);       at += 4L * (nodeCount + 1L);
+		targets = new IntRegion(channel, at, arcCount);             at += 4L * arcCount;
+		weights = new IntRegion(channel, at, arcCount);             at += 4L * arcCount;
+		arcEdges = new IntRegion(channel, at, arcCount);
+	}
+
+	/**
+	 * Map a graph file written by write().
+	 * @param file: the file.
+	 * @return: the mapped graph.
+	 * @throws IOException: if the file can't be read or isn't a mapped graph.
+	 */
+	public static MappedGraph open(File file) throws IOException{
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()){
+			// mappings stay valid after the channel is closed
+			return new MappedGraph(channel);
+		}
+	}
+
+	/**
+	 * Write a graph to a file in the layout that open() maps.
+	 * @param graph: graph to write.
+	 * @param file: file to write to. It is overwritten if it exists.
+	 * @throws IOException: if the file can't be written.
+	 */
+	public static void write(IndexedGraph graph, File file) throws IOException{
+		int n = graph.nodeCount();
+		int m = graph.edgeCount();
+		int a = graph.arcCount();
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()){
+			channel.truncate(0);
+			ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+			buffer.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(m).putInt(a);
+			while (buffer.position() < HEADER_BYTES) buffer.put((byte)0);
+
+			for (int u = 0; u < n; u++) putInt(channel, buffer, graph.x(u));
+			for (int u = 0; u < n; u++) putInt(channel, buffer, graph.y(u));
+			for (int e = 0; e < m; e++) putInt(channel, buffer, graph.edgeSource(e));
+			for (int e = 0; e < m; e++) putInt(channel, buffer, graph.edgeTarget(e));
+			for (int e = 0; e < m; e++) putInt(channel, buffer, graph.edgeWeight(e));
+			for (int e = 0; e < m; e++) putInt(channel, buffer, graph.edgeDirected(e) ? 1 : 0);
+			for (int u = 0; u < n; u++) putInt(channel, buffer, graph.firstArc(u));
+			putInt(channel, buffer, a);
+			for (int arc = 0; arc < a; arc++) putInt(channel, buffer, graph.target(arc));
+			for (int arc = 0; arc < a; arc++) putInt(channel, buffer, graph.weight(arc));
+			for (int arc = 0; arc < a; arc++) putInt(channel, buffer, graph.arcEdge(arc));
+
+			buffer.flip();
+			while (buffer.hasRemaining()) channel.write(buffer);
+		}
+	}
+
+	/**
+	 * Put an int into the buffer, flushing the buffer to the channel first if it's full.
+	 */
+	private static void putInt(FileChannel channel, ByteBuffer buffer, int value) throws IOException{
+		if (buffer.remaining() < 4){
+			buffer.flip();
+			while (buffer.hasRemaining()) channel.write(buffer);
+			buffer.clear();
+		}
+		buffer.putInt(value);
+	}
+
+	private static long fileSize(int n, int m, int a){
+		return HEADER_BYTES + 4L * (2L*n + 4L*m + (n+1L) + 3L*a);
+	}
+
+	@Override
+	public int nodeCount(){
+		return nodeCount;
+	}
+
+	@Override
+	public int edgeCount(){
+		return edgeCount;
+	}
+
+	@Override
+	public int arcCount(){
+		return arcCount;
+	}
+
+	@Override
+	public synchronized int id(Node node){
+		Integer id = nodeIds.get(node);
+		return id == null ? -1 : id;
+	}
+
+	@Override
+	public synchronized Node node(int u){
+		if (u < 0 || u >= nodeCount) throw new IndexOutOfBoundsException("No node " + u);
+		Node node = nodes.get(u);
+		if (node == null){
+			node = new Node(xs.get(u) - Node.RADIUS, ys.get(u) - Node.RADIUS);
+			nodes.put(u, node);
+			nodeIds.put(node, u);
+		}
+		return node;
+	}
+
+	@Override
+	public int x(int u){
+		return xs.get(u);
+	}
+
+	@Override
+	public int y(int u){
+		return ys.get(u);
+	}
+
+	@Override
+	public int firstArc(int u){
+		return offsets.get(u);
+	}
+
+	@Override
+	public int endArc(int u){
+		return offsets.get(u+1);
+	}
+
+	@Override
+	public int degree(int u){
+		return offsets.get(u+1) - offsets.get(u);
+	}
+
+	@Override
+	public int arcBetween(int u, int v){
+		for (int arc = offsets.get(u), end = offsets.get(u+1); arc < end; arc++){
+			if (targets.get(arc) == v) return arc;
+		}
+		return -1;
+	}
+
+	@Override
+	public int target(int arc){
+		return targets.get(arc);
+	}
+
+	@Override
+	public int weight(int arc){
+		return weights.get(arc);
+	}
+
+	@Override
+	public int arcEdge(int arc){
+		return arcEdges.get(arc);
+	}
+
+	@Override
+	public synchronized Edge edge(int e){
+		if (e < 0 || e >= edgeCount) throw new IndexOutOfBoundsException("No edge " + e);
+		Edge edge = edges.get(e);
+		if (edge == null){
+			edge = new Edge(node(edgeSource(e)), node(edgeTarget(e)), edgeDirected(e), edgeWeight(e));
+			edges.put(e, edge);
+		}
+		return edge;
+	}
+
+	@Override
+	public int edgeSource(int e){
+		return edgeSources.get(e);
+	}
+
+	@Override
+	public int edgeTarget(int e){
+		return edgeTargets.get(e);
+	}
+
+	@Override
+	public int edgeWeight(int e){
+		return edgeWeights.get(e);
+	}
+
+	@Override
+	public boolean edgeDirected(int e){
+		return edgeDirections.get(e) != 0;
+	}
+
+	/**
+	 * A read-only int array mapped from a file. A single mapping can't be bigger than 2GB,
+	 * so long arrays are mapped as several chunks.
+	 */
+	private static class IntRegion{
+
+		private static final int CHUNK_BITS = 28;
+		private static final int CHUNK_MASK = (1 << CHUNK_BITS) - 1;
+
+		private final IntBuffer[] chunks;
+
+		private IntRegion(FileChannel channel, long byteOffset, long length) throws IOException{
+			int count = (int)((length + CHUNK_MASK) >>> CHUNK_BITS);
+			chunks = new IntBuffer[count];
+			for (int i = 0; i < count; i++){
+				long first = (long)i << CHUNK_BITS;
+				long ints = Math.min(length - first, 1L << CHUNK_BITS);
+				chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, byteOffset + 4*first, 4*ints).asIntBuffer();
+			}
+		}
+
+		private int get(long index){
+			return chunks[(int)(index >>> CHUNK_BITS)].get((int)(index & CHUNK_MASK));
+		}
+
+	}
+
+}
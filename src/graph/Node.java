@@ -2,9 +2,12 @@ package graph;
 
 import java.awt.Color;
 import java.awt.Graphics;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 public class Node {
@@ -17,7 +20,11 @@ public class Node {
 	public final int YMID;
 	public final Color colour;
 
-	private Map<Edge, Node> neighbours = new HashMap<>();
+	// neighbours[i] is reached from this node through neighbourEdges[i]
+	private Edge[] neighbourEdges = new Edge[0];
+	private Node[] neighbours = new Node[0];
+	private int degree = 0;
+	private final Map<Edge, Node> neighbourView = new NeighbourView();
 
 	public Node(int xtopleft, int ytopleft) {
 		X = xtopleft;
@@ -38,7 +45,9 @@ public class Node {
 
 	/**
 	 * Add the given node as a neighbour of this node. this and neighbour must
-	 * be adjacent to the edge, or it will throw IllegalArgumentException.
+	 * be adjacent to the edge, or it will throw IllegalArgumentException. The
+	 * edge must not have been added already; Graph's edge index turns away
+	 * duplicate edges before they get here, so it isn't checked again.
 	 */
 	public void addNeighbour(Edge edge, Node neighbour) {
 		// check if this and neighbour are connected by an edge.
@@ -46,23 +55,161 @@ public class Node {
 				&& neighbour != edge.node2)
 			throw new IllegalArgumentException(
 					"Adding a neighbour to a node that isn't connected via an edge.");
-		neighbours.put(edge, neighbour);
+		if (degree == neighbours.length) {
+			int capacity = Math.max(4, degree * 2);
+			neighbourEdges = Arrays.copyOf(neighbourEdges, capacity);
+			neighbours = Arrays.copyOf(neighbours, capacity);
+		}
+		neighbourEdges[degree] = edge;
+		neighbours[degree] = neighbour;
+		degree++;
 	}
 
 	/**
-	 * Return a read-only set of this node's neighbours. Attempting to write to
-	 * it will throw an UnsupportedOperationException().
+	 * Remove the neighbour reached through the given edge.
 	 * 
-	 * @return
+	 * @param edge
+	 *            : edge joining this node to the neighbour.
+	 * @return: true if the edge touched this node and was removed.
+	 */
+	public boolean removeNeighbour(Edge edge) {
+		for (int i = 0; i < degree; i++) {
+			if (neighbourEdges[i] == edge) {
+				degree--;
+				neighbourEdges[i] = neighbourEdges[degree];
+				neighbours[i] = neighbours[degree];
+				neighbourEdges[degree] = null;
+				neighbours[degree] = null;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Return a read-only view of this node's neighbours. The view is not a copy,
+	 * so it reflects later changes to the neighbourhood. Attempting to write to it
+	 * will throw an UnsupportedOperationException().
+	 * 
+	 * @return: map from each edge touching this node to the neighbour across it.
 	 */
 	public Map<Edge, Node> getNeighbours() {
-		return new HashMap<Edge, Node>(neighbours) {
+		return neighbourView;
+	}
+
+	/**
+	 * Returns the number of neighbours of this node. Together with neighbour(i)
+	 * and neighbourEdge(i) this lets you walk the neighbourhood without
+	 * allocating anything:
+	 * 
+	 * for (int i = 0; i < node.degree(); i++) visit(node.neighbourEdge(i), node.neighbour(i));
+	 * 
+	 * @return: number of neighbours.
+	 */
+	public int degree() {
+		return degree;
+	}
+
+	/**
+	 * @param i
+	 *            : index of a neighbour, in [0, degree()).
+	 * @return: the i-th neighbour of this node.
+	 */
+	public Node neighbour(int i) {
+		if (i < 0 || i >= degree) throw new IndexOutOfBoundsException("No neighbour " + i);
+		return neighbours[i];
+	}
+
+	/**
+	 * @param i
+	 *            : index of a neighbour, in [0, degree()).
+	 * @return: the edge joining this node to its i-th neighbour.
+	 */
+	public Edge neighbourEdge(int i) {
+		if (i < 0 || i >= degree) throw new IndexOutOfBoundsException("No neighbour " + i);
+		return neighbourEdges[i];
+	}
+
+	/**
+	 * Calls the visitor once for every (edge, neighbour) pair of this node.
+	 * 
+	 * @param visitor
+	 *            : the visitor.
+	 */
+	public void forEachNeighbour(NeighbourVisitor visitor) {
+		for (int i = 0; i < degree; i++) visitor.visit(neighbourEdges[i], neighbours[i]);
+	}
+
+	/**
+	 * Callback for forEachNeighbour.
+	 */
+	public interface NeighbourVisitor {
+		void visit(Edge edge, Node neighbour);
+	}
+
+	/**
+	 * Read-only map view backed by the neighbour arrays.
+	 */
+	private class NeighbourView extends AbstractMap<Edge, Node> {
+
+		private final Set<Map.Entry<Edge, Node>> entries = new AbstractSet<Map.Entry<Edge, Node>>() {
+
+			@Override
+			public Iterator<Map.Entry<Edge, Node>> iterator() {
+				return new Iterator<Map.Entry<Edge, Node>>() {
+					private int i = 0;
+
+					@Override
+					public boolean hasNext() {
+						return i < degree;
+					}
+
+					@Override
+					public Map.Entry<Edge, Node> next() {
+						if (i >= degree) throw new NoSuchElementException();
+						Map.Entry<Edge, Node> entry = new SimpleImmutableEntry<>(neighbourEdges[i], neighbours[i]);
+						i++;
+						return entry;
+					}
+
+					@Override
+					public void remove() {
+						throw new UnsupportedOperationException(
+								"May not remove directly from a node's neighbourhood.");
+					}
+				};
+			}
+
 			@Override
-			public Node put(Edge e, Node n) {
-				throw new UnsupportedOperationException(
-						"May not add directly to a node's neighbourhood.");
+			public int size() {
+				return degree;
 			}
+
 		};
+
+		@Override
+		public Set<Map.Entry<Edge, Node>> entrySet() {
+			return entries;
+		}
+
+		@Override
+		public Node get(Object key) {
+			for (int i = 0; i < degree; i++) {
+				if (neighbourEdges[i] == key) return neighbours[i];
+			}
+			return null;
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return get(key) != null;
+		}
+
+		@Override
+		public int size() {
+			return degree;
+		}
+
 	}
 
 	/**
@@ -0,0 +1,77 @@
+package graph;
+
+/**
+ * The id of every node in a snapshot, looked up by the node's identity. Keys and ids are kept
+ * in two parallel arrays, probed linearly from the node's identity hash, so looking a node up
+ * allocates nothing and each entry costs a reference and an int rather than a boxed Integer
+ * and a map entry.
+ */
+final class NodeIds {
+
+	// the tables are kept at most half full, so probes stay short
+	private Node[] keys;
+	private int[] ids;
+
+	/**
+	 * @param expected: number of nodes that will be added.
+	 */
+	NodeIds(int expected){
+		int capacity = 16;
+		while (capacity < expected * 2) capacity <<= 1;
+		keys = new Node[capacity];
+		ids = new int[capacity];
+	}
+
+	/**
+	 * A copy of other, with room for more nodes to be added.
+	 * @param other: the ids to copy.
+	 * @param expected: number of nodes the copy will hold in all.
+	 */
+	NodeIds(NodeIds other, int expected){
+		if (expected * 2 <= other.keys.length){
+			keys = other.keys.clone();
+			ids = other.ids.clone();
+			return;
+		}
+		int capacity = other.keys.length;
+		while (capacity < expected * 2) capacity <<= 1;
+		keys = new Node[capacity];
+		ids = new int[capacity];
+		for (int i = 0; i < other.keys.length; i++){
+			if (other.keys[i] != null) put(other.keys[i], other.ids[i]);
+		}
+	}
+
+	/**
+	 * Give a node an id. The node mustn't have one already, and no more nodes may be added
+	 * than were expected.
+	 * @param node: the node.
+	 * @param id: its id.
+	 */
+	void put(Node node, int id){
+		int i = slot(node);
+		keys[i] = node;
+		ids[i] = id;
+	}
+
+	/**
+	 * @param node: a node.
+	 * @return: its id, or -1 if it hasn't got one.
+	 */
+	int get(Node node){
+		int i = slot(node);
+		return keys[i] == null ? -1 : ids[i];
+	}
+
+	/**
+	 * @return: the slot holding the node, or the empty slot it would go in.
+	 */
+	private int slot(Node node){
+		int mask = keys.length - 1;
+		int h = System.identityHashCode(node);
+		int i = (h ^ (h >>> 16)) & mask;
+		while (keys[i] != null && keys[i] != node) i = (i + 1) & mask;
+		return i;
+	}
+
+}
@@ -0,0 +1,31 @@
+package graph;
+
+/**
+ * An unordered pair of nodes, used as the key of a graph's edge index. The pair (a,b)
+ * is equal to the pair (b,a). Nodes are compared by identity.
+ */
+final class NodePair {
+
+	private final Node node1;
+	private final Node node2;
+
+	NodePair(Node n1, Node n2){
+		node1 = n1;
+		node2 = n2;
+	}
+
+	@Override
+	public int hashCode(){
+		return System.identityHashCode(node1) + System.identityHashCode(node2);
+	}
+
+	@Override
+	public boolean equals(Object obj){
+		if (this == obj) return true;
+		if (!(obj instanceof NodePair)) return false;
+		NodePair other = (NodePair)obj;
+		return (node1 == other.node1 && node2 == other.node2)
+			|| (node1 == other.node2 && node2 == other.node1);
+	}
+
+}
@@ -0,0 +1,163 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A uniform grid over the plane that buckets nodes by the position of their centre.
+ * Cells are Node.DIAM wide, so any node that overlaps a given node, or contains a given
+ * point, is in the same cell or one of the eight cells around it. Only cells that hold
+ * a node are stored.
+ */
+class SpatialGrid {
+
+	private static final int CELL = Node.DIAM;
+
+	private Map<Long,List<Node>> cells = new HashMap<>();
+	private int size = 0;
+
+	/**
+	 * Add a node to the grid.
+	 * @param node: node to add.
+	 */
+	public void add(Node node){
+		long key = key(cell(node.XMID), cell(node.YMID));
+		List<Node> bucket = cells.get(key);
+		if (bucket == null){
+			bucket = new ArrayList<>(2);
+			cells.put(key, bucket);
+		}
+		bucket.add(node);
+		size++;
+	}
+
+	/**
+	 * Remove a node from the grid.
+	 * @param node: node to remove.
+	 * @return: true if the node was in the grid.
+	 */
+	public boolean remove(Node node){
+		long key = key(cell(node.XMID), cell(node.YMID));
+		List<Node> bucket = cells.get(key);
+		if (bucket == null) return false;
+		for (int i = 0; i < bucket.size(); i++){
+			if (bucket.get(i) == node){
+				bucket.remove(i);
+				if (bucket.isEmpty()) cells.remove(key);
+				size--;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return: number of nodes in the grid.
+	 */
+	public int size(){
+		return size;
+	}
+
+	/**
+	 * Find a node in the grid that overlaps the given node.
+	 * @param node: the node to check.
+	 * @return: a node overlapping with the given one, or null if there are none.
+	 */
+	public Node overlapping(Node node){
+		int cx = cell(node.XMID);
+		int cy = cell(node.YMID);
+		for (int i = cx-1; i <= cx+1; i++){
+			for (int j = cy-1; j <= cy+1; j++){
+				List<Node> bucket = cells.get(key(i,j));
+				if (bucket == null) continue;
+				for (Node other : bucket){
+					if (other != node && Graph.overlapping(node, other)) return other;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Find a node containing the point (x,y).
+	 * @param x: x part of the point.
+	 * @param y: y part of the point.
+	 * @return: a node containing (x,y), or null if there are none.
+	 */
+	public Node nodeAt(int x, int y){
+		int cx = cell(x);
+		int cy = cell(y);
+		for (int i = cx-1; i <= cx+1; i++){
+			for (int j = cy-1; j <= cy+1; j++){
+				List<Node> bucket = cells.get(key(i,j));
+				if (bucket == null) continue;
+				for (Node node : bucket){
+					if (node.contains(x,y)) return node;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Find every node whose bounding square intersects the given rectangle.
+	 * @param x: left edge of the rectangle.
+	 * @param y: top edge of the rectangle.
+	 * @param width: width of the rectangle.
+	 * @param height: height of the rectangle.
+	 * @return: list of nodes inside or touching the rectangle.
+	 */
+	public List<Node> nodesIn(int x, int y, int width, int height){
+		List<Node> found = new ArrayList<>();
+		int left = cell(x - Node.RADIUS);
+		int right = cell(x + width + Node.RADIUS);
+		int top = cell(y - Node.RADIUS);
+		int bottom = cell(y + height + Node.RADIUS);
+
+		// a huge rectangle over a sparse grid: cheaper to look at every occupied cell
+		if ((long)(right-left+1) * (bottom-top+1) > cells.size()){
+			for (List<Node> bucket : cells.values()) collect(bucket, x, y, width, height, found);
+			return found;
+		}
+		for (int i = left; i <= right; i++){
+			for (int j = top; j <= bottom; j++){
+				List<Node> bucket = cells.get(key(i,j));
+				if (bucket != null) collect(bucket, x, y, width, height, found);
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Add every node in the bucket that intersects the rectangle to the list.
+	 */
+	private static void collect(List<Node> bucket, int x, int y, int width, int height, List<Node> found){
+		for (Node node : bucket){
+			if (node.X <= x + width && node.X + Node.DIAM >= x
+				&& node.Y <= y + height && node.Y + Node.DIAM >= y){
+				found.add(node);
+			}
+		}
+	}
+
+	/**
+	 * @param coordinate: an x or y coordinate.
+	 * @return: the column or row of the cell containing it.
+	 */
+	static int cell(int coordinate){
+		return Math.floorDiv(coordinate, CELL);
+	}
+
+	/**
+	 * @param (cx,cy): column and row of a cell.
+	 * @return: key identifying the cell.
+	 */
+	static long key(int cx, int cy){
+		// scramble the bits so that Long.hashCode doesn't send whole diagonals of cells to
+		// the same bucket; multiplying by an odd constant keeps keys distinct
+		return (((long)cx << 32) | (cy & 0xffffffffL)) * 0x9E3779B97F4A7C15L;
+	}
+
+}
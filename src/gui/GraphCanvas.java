@@ -100,7 +100,7 @@ public class GraphCanvas extends JPanel {
 			graph.draw(g);
 		}
 		else{
-			algorithm.draw(g);
+			algorithm.draw(g, getWidth(), getHeight());
 		}
 	}
 
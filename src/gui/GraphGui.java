@@ -8,9 +8,11 @@ import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Component;
 import java.awt.Graphics;
+import java.io.File;
 import java.util.LinkedList;
 import java.util.List;
 
+import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JOptionPane;
 
@@ -72,6 +74,18 @@ public class GraphGui extends JFrame {
 		JOptionPane.showMessageDialog(this,msg);
 	}
 	
+	/**
+	 * Ask the user to pick a file.
+	 * @param save: true if the file is going to be saved to, false if it's going to be loaded.
+	 * @return: the chosen file, or null if the user cancelled.
+	 */
+	public File chooseFile(boolean save){
+		JFileChooser chooser = new JFileChooser();
+		int result = save ? chooser.showSaveDialog(this) : chooser.showOpenDialog(this);
+		if (result != JFileChooser.APPROVE_OPTION) return null;
+		return chooser.getSelectedFile();
+	}
+	
 	public static void main(String[] args){
 		GraphController controller = new GraphController();
 		GraphGui gui = new GraphGui(controller);
@@ -158,6 +158,20 @@ public class GraphingPane extends JPanel {
 			}
 		});
 		
+		b_save.addActionListener(new ActionListener(){
+			@Override
+			public void actionPerformed(ActionEvent arg0) {
+				master.sendButtonPress("save");
+			}
+		});
+		
+		b_load.addActionListener(new ActionListener(){
+			@Override
+			public void actionPerformed(ActionEvent arg0) {
+				master.sendButtonPress("load");
+			}
+		});
+		
 		return panel;
 			
 	}